@@ -3,6 +3,7 @@ package io.mcp.core.base;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -18,6 +19,10 @@ import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
 import reactor.core.publisher.Mono;
 
 public abstract class BaseMcpTool implements McpTool {
+
+    // Set when the tool spec is loaded, -1 until then
+    private volatile long timeoutMs = -1;
+
     @Override
     public McpServerFeatures.AsyncToolSpecification getToolSpecification() {
 
@@ -52,6 +57,40 @@ public abstract class BaseMcpTool implements McpTool {
         
         }
     }
+    /**
+     * Send notifications/progress for this call if the client asked for it
+     * with _meta.progressToken. Streaming transports deliver it right away.
+     */
+    protected void reportProgress(McpAsyncServerExchange exchange, CallToolRequest request, double progress, Double total, String message) {
+        sendProgress(exchange, request, progress, total, message, null);
+    }
+
+    /**
+     * Stream a chunk of the result ahead of the final response: a progress
+     * notification carrying the text in _meta.partialContent. Returns false
+     * if the request has no progressToken, so the chunk must go in the result.
+     */
+    protected boolean reportPartialContent(McpAsyncServerExchange exchange, CallToolRequest request, double progress, Double total, String text) {
+        Map<String, Object> meta = Map.of("partialContent", List.of(Map.of("type", "text", "text", text)));
+        return sendProgress(exchange, request, progress, total, null, meta);
+    }
+
+    private boolean sendProgress(McpAsyncServerExchange exchange, CallToolRequest request, double progress, Double total, String message, Map<String, Object> meta) {
+        Object progressToken = request.meta() != null ? request.meta().get("progressToken") : null;
+        if (progressToken == null || exchange == null) {
+            return false;
+        }
+        try {
+            exchange.progressNotification(new McpSchema.ProgressNotification(progressToken, progress, total, message, meta))
+                .subscribe(null, e -> Utility.debug("Progress notification failed:", e.getMessage()));
+            return true;
+        } catch (RuntimeException e) {
+            // Exchange without a session (tool invoked outside of a transport)
+            Utility.debug("Progress notification failed:", e.getMessage());
+            return false;
+        }
+    }
+
     public void debugLog(CallToolResult result){
         StringBuilder sb = new StringBuilder();
         sb.append("TOOL RESPONSE [").append(getModule()).append(".").append(getName()).append("] ");
@@ -143,14 +182,24 @@ public abstract class BaseMcpTool implements McpTool {
 
         try {
             JsonNode jsonNode = loadJsonSchema("tool");
+            timeoutMs = JsonSchemaUtility.getTimeoutMs(jsonNode);
             return JsonSchemaUtility.getTool(jsonNode);
         } catch (IOException e) {
             throw new RuntimeException("Failed to load tool specification", e);
         }
-
-
     }
 
+    /**
+     * The timeoutMs read along with the tool spec; the spec is only loaded
+     * here if getTool() has not been called yet.
+     */
+    @Override
+    public long getTimeoutMs() {
+        if (timeoutMs < 0) {
+            getTool();
+        }
+        return timeoutMs;
+    }
 
     @Override
     public List<McpServerFeatures.AsyncPromptSpecification> getPromptSpecifications() {
@@ -184,7 +233,7 @@ public abstract class BaseMcpTool implements McpTool {
     private JsonNode loadJsonSchema(String type) throws IOException {
     
         String path = "io/mcp/spec/"+ getModule() + "/"+ type + "/" + getName() + ".json";
-        String jsonSchema = JsonSchemaUtility.loadJsonSchema(path);
+        String jsonSchema = JsonSchemaUtility.loadJsonSchema(path, getClass().getClassLoader());
         if (jsonSchema == null) {
             Utility.debug("No " + type + " schema found for " + path);
             return null;
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import io.mcp.core.protocol.McpCommand;
+import io.mcp.core.server.McpHttpServer;
 import io.mcp.core.utility.Utility;
 
 public class StatusCommand implements McpCommand{
@@ -19,6 +20,12 @@ public class StatusCommand implements McpCommand{
         result.put("port", Utility.getConfiguredPort());
         result.put("fileLogging", Utility.isFileLogging());
         result.put("version", "1.0.1");
+        McpHttpServer server = McpHttpServer.getCurrentInstance();
+        if (server != null) {
+            result.put("inFlight", server.getInFlightCount());
+            result.put("maxInFlight", server.getMaxInFlight());
+            result.put("sessions", server.getSessionMetrics());
+        }
         return CompletableFuture.completedFuture(result);
     }
     
@@ -1,18 +1,155 @@
 package io.mcp.core.command;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.node.IntNode;
 
 import io.mcp.core.protocol.McpCommand;
+import io.mcp.core.protocol.McpService;
+import io.mcp.core.server.McpHttpServer;
+import io.mcp.core.server.StreamableServer;
+import io.mcp.core.utility.ConfigUtility;
+import io.mcp.core.utility.ServiceUtility;
+import io.mcp.core.utility.Utility;
+import io.modelcontextprotocol.spec.McpSchema;
+
+/*
+
+Handles GAE's /_ah/warmup: does the work the first real request would
+otherwise pay for, and reports how long each step took, in ms.
+
+- modules: instantiate pending modules and load their specs
+- per module: a synthetic initialize / list cycle through its server, then
+  a CallToolResult serialized the way tools/call responds
+- per module, outbound: McpService.warmup(), e.g. opening API connections,
+  bounded by WARMUP_TIMEOUT_MS (default 10000)
+
+{
+    "status": "ok",
+    "totalMs": 1234.5,
+    "steps": {
+        "modules": 980.1,
+        "random": {
+            "initialize": 41.2,
+            "tools/list": 0.3,
+            "prompts/list": 0.1,
+            "resources/list": 0.1,
+            "resources/templates/list": 0.1,
+            "toolResult": 6.8,
+            "outbound": 0.0
+        }
+    }
+}
+
+A failed step reports its error instead of a time.
+
+*/
 
 public class WarmupCommand implements McpCommand{
 
+    private static final List<String> CYCLE = List.of("initialize", "tools/list", "prompts/list", "resources/list", "resources/templates/list");
+
+    private static final String INITIALIZE_PARAMS = ",\"params\":{\"protocolVersion\":\"2025-03-26\",\"capabilities\":{},\"clientInfo\":{\"name\":\"warmup\",\"version\":\"1.0.0\"}}";
+
     @Override
     public CompletableFuture<Map<String, Object>> execute() {
-        Map<String, Object> result = new HashMap<>();
+        long started = System.nanoTime();
+        Map<String, Object> steps = new LinkedHashMap<>();
+
+        McpHttpServer server = McpHttpServer.getCurrentInstance();
+        if (server != null) {
+            long step = System.nanoTime();
+            Map<String, StreamableServer> servers = server.getModuleServers();
+            steps.put("modules", elapsedMs(step));
+
+            // Outbound warmups run while the servers are exercised
+            long timeoutMs = Math.max(1, ConfigUtility.getInt("WARMUP_TIMEOUT_MS", 10000));
+            Map<String, CompletableFuture<Object>> outbound = new LinkedHashMap<>();
+            for (String module : servers.keySet()) {
+                McpService service = ServiceUtility.getService(module);
+                if (service != null) {
+                    outbound.put(module, timed(service, timeoutMs));
+                }
+            }
+
+            for (Map.Entry<String, StreamableServer> entry : servers.entrySet()) {
+                steps.put(entry.getKey(), warmup(entry.getValue()));
+            }
+
+            for (Map.Entry<String, CompletableFuture<Object>> entry : outbound.entrySet()) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> moduleSteps = (Map<String, Object>) steps.get(entry.getKey());
+                moduleSteps.put("outbound", entry.getValue().join());
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
         result.put("status", "ok");
+        result.put("totalMs", elapsedMs(started));
+        result.put("steps", steps);
+        Utility.debug("Warmup completed in", result.get("totalMs"), "ms:", steps);
         return CompletableFuture.completedFuture(result);
     }
-    
+
+    /**
+     * Run the synthetic request cycle through one server.
+     */
+    private Map<String, Object> warmup(StreamableServer server) {
+        Map<String, Object> steps = new LinkedHashMap<>();
+        int id = 0;
+        for (String method : CYCLE) {
+            String request = "{\"jsonrpc\":\"2.0\",\"id\":" + (++id) + ",\"method\":\"" + method + "\""
+                    + ("initialize".equals(method) ? INITIALIZE_PARAMS : "") + "}";
+            long started = System.nanoTime();
+            try {
+                server.handleRequestBytes(request.getBytes(StandardCharsets.UTF_8), null).join();
+                steps.put(method, elapsedMs(started));
+            } catch (RuntimeException e) {
+                steps.put(method, "error: " + e.getMessage());
+            }
+        }
+
+        long started = System.nanoTime();
+        try {
+            McpSchema.CallToolResult result = McpSchema.CallToolResult.builder()
+                    .addTextContent("warmup")
+                    .isError(false)
+                    .build();
+            server.serializeToolResult(IntNode.valueOf(++id), result);
+            steps.put("toolResult", elapsedMs(started));
+        } catch (RuntimeException e) {
+            steps.put("toolResult", "error: " + e.getMessage());
+        }
+        return steps;
+    }
+
+    /**
+     * Start a module's outbound warmup; completes with the time it took, or its error.
+     */
+    private static CompletableFuture<Object> timed(McpService service, long timeoutMs) {
+        long started = System.nanoTime();
+        CompletableFuture<Void> future;
+        try {
+            future = service.warmup().copy();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).handle((ignored, error) -> {
+            if (error == null) {
+                return elapsedMs(started);
+            }
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            return "error: " + cause;
+        });
+    }
+
+    private static double elapsedMs(long started) {
+        return Math.round((System.nanoTime() - started) / 100_000.0) / 10.0;
+    }
+
 }
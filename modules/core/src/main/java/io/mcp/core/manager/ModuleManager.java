@@ -0,0 +1,314 @@
+package io.mcp.core.manager;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.mcp.core.protocol.McpService;
+
+/**
+ * Loads and unloads McpService jars at runtime.
+ *
+ * Each jar gets its own child-first class loader, so a jar can carry a new
+ * version of a module that is also on the classpath; only the core, MCP SDK,
+ * Reactor and Jackson types come from the parent and are shared. Jars are
+ * loaded from a private copy, so the original can be overwritten while the
+ * old version is still running. The services a jar provides are handed to a
+ * {@link ModuleHost}, which swaps them in behind their routes. The replaced
+ * version's class loader is closed only once the host reports it drained.
+ *
+ * With {@link #watch(Path)} a directory is scanned at startup and then
+ * watched: a jar that appears or changes is (re)loaded, one that is deleted
+ * is unloaded.
+ */
+public class ModuleManager {
+
+    /**
+     * Server side of a module swap.
+     */
+    public interface ModuleHost {
+
+        /**
+         * Serve a module, replacing the version currently serving it.
+         *
+         * @return completes once the replaced version has no calls in flight
+         */
+        CompletableFuture<Void> deploy(McpService service);
+
+        /**
+         * Stop serving a module.
+         *
+         * @return completes once its calls in flight are done
+         */
+        CompletableFuture<Void> undeploy(String module);
+    }
+
+    private record LoadedJar(URLClassLoader loader, Path copy, List<String> modules) {
+    }
+
+    // Let a jar being copied into the directory settle before loading it
+    private static final long SETTLE_MS = 500;
+
+    private final ModuleHost host;
+    private final Path workDir;
+    private final AtomicLong generation = new AtomicLong();
+
+    // Guarded by this
+    private final Map<Path, LoadedJar> jars = new HashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public ModuleManager(ModuleHost host) throws IOException {
+        this.host = host;
+        this.workDir = Files.createTempDirectory("mcp-modules");
+        workDir.toFile().deleteOnExit();
+    }
+
+    /**
+     * Load the services of a jar and deploy them. If the jar was loaded
+     * before, its previous version is replaced and modules it no longer
+     * provides are undeployed.
+     *
+     * @return the modules the jar provides
+     */
+    public synchronized List<String> load(Path jar) throws IOException {
+        jar = jar.toAbsolutePath().normalize();
+        Path copy = workDir.resolve(generation.incrementAndGet() + "-" + jar.getFileName());
+        Files.copy(jar, copy, StandardCopyOption.REPLACE_EXISTING);
+        URLClassLoader loader = new ModuleClassLoader("mcp-module:" + jar.getFileName(), copy.toUri().toURL());
+
+        List<McpService> services = new ArrayList<>();
+        try {
+            // Only the jar's own providers; those of the parent are already served
+            ServiceLoader.load(McpService.class, loader).stream()
+                    .filter(provider -> provider.type().getClassLoader() == loader)
+                    .forEach(provider -> services.add(provider.get()));
+        } catch (RuntimeException | Error e) {
+            close(loader, copy);
+            throw new IOException("Failed to load services from " + jar + ": " + e.getMessage(), e);
+        }
+        if (services.isEmpty()) {
+            close(loader, copy);
+            debug("No McpService in", jar);
+            return List.of();
+        }
+
+        List<String> modules = new ArrayList<>();
+        List<CompletableFuture<Void>> retired = new ArrayList<>();
+        for (McpService service : services) {
+            modules.add(service.getModule());
+            retired.add(host.deploy(service));
+            debug("Deployed module", service.getModule(), "from", jar);
+        }
+
+        LoadedJar previous = jars.put(jar, new LoadedJar(loader, copy, List.copyOf(modules)));
+        if (previous != null) {
+            for (String module : previous.modules()) {
+                if (!modules.contains(module)) {
+                    retired.add(host.undeploy(module));
+                }
+            }
+            closeWhenDone(previous, retired);
+        }
+        return modules;
+    }
+
+    /**
+     * Undeploy the modules of a jar and close its class loader once they drained.
+     */
+    public synchronized boolean unload(Path jar) {
+        LoadedJar loaded = jars.remove(jar.toAbsolutePath().normalize());
+        if (loaded == null) {
+            return false;
+        }
+        List<CompletableFuture<Void>> retired = new ArrayList<>();
+        for (String module : loaded.modules()) {
+            retired.add(host.undeploy(module));
+            debug("Undeployed module", module, "from", jar);
+        }
+        closeWhenDone(loaded, retired);
+        return true;
+    }
+
+    /**
+     * Modules loaded by this manager, by jar.
+     */
+    public synchronized Map<String, List<String>> getLoadedModules() {
+        Map<String, List<String>> loaded = new HashMap<>();
+        jars.forEach((jar, entry) -> loaded.put(jar.toString(), entry.modules()));
+        return loaded;
+    }
+
+    /**
+     * Load every jar in a directory, then keep it in sync on a daemon thread.
+     */
+    public synchronized void watch(Path dir) throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Already watching a module directory");
+        }
+        Path directory = dir.toAbsolutePath().normalize();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.jar")) {
+            for (Path jar : stream) {
+                loadQuietly(jar);
+            }
+        }
+
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        WatchService service = watchService;
+        watcher = new Thread(() -> watchLoop(service, directory), "mcp-module-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        debug("Watching module directory", directory);
+    }
+
+    /**
+     * Stop watching and unload every jar.
+     */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {}
+            watchService = null;
+            watcher = null;
+        }
+        for (Path jar : new ArrayList<>(jars.keySet())) {
+            unload(jar);
+        }
+    }
+
+    private void watchLoop(WatchService service, Path directory) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                // Collapse the burst of events a copy produces into one reload
+                TimeUnit.MILLISECONDS.sleep(SETTLE_MS);
+                Map<Path, WatchEvent.Kind<?>> changes = new HashMap<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name && name.toString().endsWith(".jar")) {
+                        changes.put(directory.resolve(name), event.kind());
+                    }
+                }
+                key.reset();
+
+                for (Map.Entry<Path, WatchEvent.Kind<?>> change : changes.entrySet()) {
+                    if (change.getValue() == StandardWatchEventKinds.ENTRY_DELETE || !Files.exists(change.getKey())) {
+                        unload(change.getKey());
+                    } else {
+                        loadQuietly(change.getKey());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void loadQuietly(Path jar) {
+        try {
+            load(jar);
+        } catch (IOException | RuntimeException e) {
+            debug("!!! Failed to load module jar", jar, ":", e.getMessage());
+        }
+    }
+
+    private void closeWhenDone(LoadedJar loaded, List<CompletableFuture<Void>> retired) {
+        CompletableFuture.allOf(retired.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> close(loaded.loader(), loaded.copy()));
+    }
+
+    /**
+     * Child-first loader for one module jar. Shared API packages always
+     * resolve through the parent so the module and the server agree on them.
+     */
+    private static final class ModuleClassLoader extends URLClassLoader {
+
+        private static final String[] SHARED_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "io.mcp.core.", "io.modelcontextprotocol.",
+            "reactor.", "org.reactivestreams.", "com.fasterxml.jackson.", "org.slf4j."
+        };
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        ModuleClassLoader(String name, URL jar) {
+            super(name, new URL[] {jar}, McpService.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (isShared(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try {
+                        loaded = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            URL url = findResource(name);
+            return url != null ? url : super.getResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            List<URL> urls = Collections.list(findResources(name));
+            urls.addAll(Collections.list(getParent().getResources(name)));
+            return Collections.enumeration(urls);
+        }
+
+        private static boolean isShared(String className) {
+            for (String prefix : SHARED_PACKAGES) {
+                if (className.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static void close(URLClassLoader loader, Path copy) {
+        try {
+            loader.close();
+            Files.deleteIfExists(copy);
+        } catch (IOException e) {
+            debug("Failed to close module class loader:", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.mcp.core.manager;
+
+/**
+ * The session registry is full and every session in it is in use, so a new
+ * session cannot be admitted. Answered with 503 over HTTP.
+ */
+public final class SessionLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    SessionLimitException(String name, int maxSessions) {
+        super("Every " + name + " session is in use (" + maxSessions + ")");
+    }
+}
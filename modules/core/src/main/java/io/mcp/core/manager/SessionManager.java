@@ -0,0 +1,381 @@
+package io.mcp.core.manager;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded registry of live sessions with idle expiry.
+ *
+ * Lookups are a ConcurrentHashMap get. Touching a session also moves it to
+ * the tail of an intrusive access-ordered list, under a lock that guards
+ * nothing but the list's links. Expiry runs on a hashed timer wheel:
+ * every session sits in the bucket of the tick at which it would go idle.
+ * Each tick drains one bucket and either evicts an entry or, if it was used
+ * since it was scheduled, re-buckets it for its remaining time. Only
+ * creation and ticks touch the wheel.
+ *
+ * When the registry is full, the least recently used session is evicted to
+ * make room: the head of the list, or the first one after it that is not
+ * busy. Sessions the inUse predicate reports busy (e.g. with tool calls
+ * running) are neither evicted nor expired; if every session is busy a new
+ * one is refused with SessionLimitException. Removal, idle expiry and
+ * capacity eviction all invoke the eviction listener.
+ *
+ * @param <S> per-session state
+ */
+public class SessionManager<S> {
+
+    private enum RemovalCause {
+        CLOSED, IDLE, CAPACITY
+    }
+
+    private static final int WHEEL_SIZE = 64;
+    private static final long MIN_TICK_MS = 100;
+
+    // One daemon thread drives the wheels of every manager
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-session-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final int maxSessions;
+    private final long idleTtlNanos;
+    private final long tickNanos;
+    private final Supplier<S> factory;
+    private final BiConsumer<String, S> evictionListener;
+    private final Predicate<S> inUse;
+
+    private final Map<String, Entry<S>> entries = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Entry<S>>[] wheel = new ArrayDeque[WHEEL_SIZE];
+    private long currentTick;
+    private ScheduledFuture<?> tickTask;
+
+    // Circular list in access order, oldest after the sentinel; guarded by lruLock
+    private final Entry<S> lru = new Entry<>(null, null);
+    private final Object lruLock = new Object();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * @param name name used in logs and metrics
+     * @param maxSessions maximum number of live sessions
+     * @param idleTtlMs time after the last use at which a session expires
+     * @param factory creates the state of a new session
+     * @param evictionListener called with the id and state of every session that leaves the registry
+     */
+    public SessionManager(String name, int maxSessions, long idleTtlMs, Supplier<S> factory, BiConsumer<String, S> evictionListener) {
+        this(name, maxSessions, idleTtlMs, factory, evictionListener, null);
+    }
+
+    /**
+     * @param inUse reports sessions that must not be evicted or expired; null if none are pinned
+     */
+    public SessionManager(String name, int maxSessions, long idleTtlMs, Supplier<S> factory, BiConsumer<String, S> evictionListener,
+            Predicate<S> inUse) {
+        if (maxSessions <= 0 || idleTtlMs <= 0) {
+            throw new IllegalArgumentException("maxSessions and idleTtlMs must be positive");
+        }
+        this.name = name;
+        this.maxSessions = maxSessions;
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+        // The TTL spans less than one wheel turn, so entries never need round counters
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(MIN_TICK_MS, (idleTtlMs + WHEEL_SIZE - 2) / (WHEEL_SIZE - 1)));
+        this.factory = factory;
+        this.evictionListener = evictionListener;
+        this.inUse = inUse;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        lru.prev = lru;
+        lru.next = lru;
+    }
+
+    /**
+     * Get the state of a session, creating it if needed, and mark it used.
+     *
+     * @throws SessionLimitException if the registry is full and every session is in use
+     */
+    public S getOrCreate(String sessionId) {
+        Entry<S> entry = entries.get(sessionId);
+        if (entry != null) {
+            touch(entry);
+            return entry.state;
+        }
+        return create(sessionId);
+    }
+
+    /**
+     * Get the state of a live session and mark it used, or null.
+     */
+    public S get(String sessionId) {
+        Entry<S> entry = entries.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        touch(entry);
+        return entry.state;
+    }
+
+    /**
+     * Mark a session used. Returns false if it is not live.
+     */
+    public boolean touch(String sessionId) {
+        Entry<S> entry = entries.get(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        touch(entry);
+        return true;
+    }
+
+    public boolean contains(String sessionId) {
+        return entries.containsKey(sessionId);
+    }
+
+    /**
+     * Remove a session. Returns false if it was not live.
+     */
+    public boolean remove(String sessionId) {
+        Entry<S> entry = entries.remove(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        closed.incrementAndGet();
+        notifyRemoved(entry, RemovalCause.CLOSED);
+        return true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove every session.
+     */
+    public void clear() {
+        for (String sessionId : entries.keySet()) {
+            remove(sessionId);
+        }
+        synchronized (this) {
+            for (ArrayDeque<Entry<S>> bucket : wheel) {
+                bucket.clear();
+            }
+        }
+    }
+
+    /**
+     * Remove every session and stop the expiry timer. The manager restarts
+     * its timer if it is used again.
+     */
+    public void close() {
+        clear();
+        synchronized (this) {
+            if (tickTask != null) {
+                tickTask.cancel(false);
+                tickTask = null;
+            }
+        }
+    }
+
+    /**
+     * Counters for status reporting.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("live", entries.size());
+        metrics.put("max", maxSessions);
+        metrics.put("idleTtlMs", TimeUnit.NANOSECONDS.toMillis(idleTtlNanos));
+        metrics.put("created", created.get());
+        metrics.put("closed", closed.get());
+        metrics.put("expired", expired.get());
+        metrics.put("evicted", evicted.get());
+        return metrics;
+    }
+
+    private S create(String sessionId) {
+        Entry<S> entry;
+        Entry<S> victim = null;
+        synchronized (this) {
+            // Re-check under the lock: another thread may have created it
+            Entry<S> existing = entries.get(sessionId);
+            if (existing != null) {
+                touch(existing);
+                return existing.state;
+            }
+            if (entries.size() >= maxSessions) {
+                victim = evictLeastRecentlyUsed();
+                if (victim == null) {
+                    throw new SessionLimitException(name, maxSessions);
+                }
+            }
+            entry = new Entry<>(sessionId, factory.get());
+            entries.put(sessionId, entry);
+            touch(entry);
+            schedule(entry, idleTtlNanos);
+            if (tickTask == null) {
+                tickTask = REAPER.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        created.incrementAndGet();
+        if (victim != null) {
+            notifyRemoved(victim, RemovalCause.CAPACITY);
+        }
+        return entry.state;
+    }
+
+    /**
+     * Remove the idle entry with the oldest last use. Called with the lock
+     * held when the registry is full; null if every session is in use. The
+     * walk from the head only passes over busy sessions. The entry stays in
+     * its wheel bucket, which skips it once removed.
+     */
+    private Entry<S> evictLeastRecentlyUsed() {
+        Entry<S> victim = null;
+        synchronized (lruLock) {
+            for (Entry<S> entry = lru.next; entry != lru; entry = entry.next) {
+                if (!isInUse(entry)) {
+                    victim = entry;
+                    break;
+                }
+            }
+        }
+        if (victim == null) {
+            debug("!!! Every", name, "session is in use, refusing a new one over", maxSessions);
+            return null;
+        }
+        entries.remove(victim.sessionId, victim);
+        unlink(victim);
+        evicted.incrementAndGet();
+        return victim;
+    }
+
+    /**
+     * Mark an entry used and move it to the tail of the access list.
+     */
+    private void touch(Entry<S> entry) {
+        entry.lastAccessNanos = System.nanoTime();
+        synchronized (lruLock) {
+            if (entry.removed || lru.prev == entry) {
+                return;
+            }
+            if (entry.next != null) {
+                entry.prev.next = entry.next;
+                entry.next.prev = entry.prev;
+            }
+            Entry<S> tail = lru.prev;
+            entry.prev = tail;
+            entry.next = lru;
+            tail.next = entry;
+            lru.prev = entry;
+        }
+    }
+
+    /**
+     * Mark an entry removed and take it off the access list.
+     */
+    private void unlink(Entry<S> entry) {
+        synchronized (lruLock) {
+            entry.removed = true;
+            if (entry.next != null) {
+                entry.prev.next = entry.next;
+                entry.next.prev = entry.prev;
+                entry.prev = null;
+                entry.next = null;
+            }
+        }
+    }
+
+    private boolean isInUse(Entry<S> entry) {
+        return inUse != null && inUse.test(entry.state);
+    }
+
+    private void schedule(Entry<S> entry, long delayNanos) {
+        long ticks = Math.max(1, Math.min(WHEEL_SIZE - 1, (delayNanos + tickNanos - 1) / tickNanos));
+        wheel[(int) ((currentTick + ticks) % WHEEL_SIZE)].add(entry);
+    }
+
+    private void tick() {
+        ArrayDeque<Entry<S>> due;
+        ArrayDeque<Entry<S>> expiredEntries = new ArrayDeque<>();
+        synchronized (this) {
+            currentTick++;
+            ArrayDeque<Entry<S>> bucket = wheel[(int) (currentTick % WHEEL_SIZE)];
+            due = bucket.clone();
+            bucket.clear();
+
+            long now = System.nanoTime();
+            for (Entry<S> entry : due) {
+                if (entry.removed) {
+                    continue;
+                }
+                long idle = now - entry.lastAccessNanos;
+                if (idle >= idleTtlNanos && isInUse(entry)) {
+                    // Busy past its TTL: check again a full TTL from now
+                    schedule(entry, idleTtlNanos);
+                } else if (idle >= idleTtlNanos) {
+                    if (entries.remove(entry.sessionId, entry)) {
+                        unlink(entry);
+                        expiredEntries.add(entry);
+                    }
+                } else {
+                    // Used since it was scheduled: re-bucket for the time it has left
+                    schedule(entry, idleTtlNanos - idle);
+                }
+            }
+        }
+
+        for (Entry<S> entry : expiredEntries) {
+            expired.incrementAndGet();
+            notifyRemoved(entry, RemovalCause.IDLE);
+        }
+    }
+
+    private void notifyRemoved(Entry<S> entry, RemovalCause cause) {
+        debug("Session", entry.sessionId, "removed from", name, "-", cause);
+        if (evictionListener == null) {
+            return;
+        }
+        try {
+            evictionListener.accept(entry.sessionId, entry.state);
+        } catch (RuntimeException e) {
+            debug("Session eviction listener failed:", e.getMessage());
+        }
+    }
+
+    private static final class Entry<S> {
+        final String sessionId;
+        final S state;
+        volatile long lastAccessNanos;
+        volatile boolean removed;
+        // Access list links, guarded by lruLock; null while not on the list
+        Entry<S> prev;
+        Entry<S> next;
+
+        Entry(String sessionId, S state) {
+            this.sessionId = sessionId;
+            this.state = state;
+            this.lastAccessNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.mcp.core.protocol;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+
+Declares the module name of an McpService class, the same value its
+getModule() returns. Services carrying it can be routed without being
+instantiated; they are created on first use. A service whose getModule()
+does not match the annotation fails to instantiate.
+
+*/
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface McpModule {
+
+    public String value();
+}
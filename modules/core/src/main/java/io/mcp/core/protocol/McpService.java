@@ -1,6 +1,7 @@
 package io.mcp.core.protocol;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.spec.McpSchema.Implementation;
@@ -12,4 +13,12 @@ public interface McpService {
     public List<McpServerFeatures.AsyncPromptSpecification> getPromptSpecifications();
     public List<McpServerFeatures.AsyncResourceSpecification> getResourceSpecifications();
     public List<McpServerFeatures.AsyncResourceTemplateSpecification> getResourceTemplateSpecifications();
+
+    /**
+     * Open outbound resources, such as connections to a remote API, ahead of
+     * the first tool call. Run by the warmup request; does nothing by default.
+     */
+    public default CompletableFuture<Void> warmup() {
+        return CompletableFuture.completedFuture(null);
+    }
 }
\ No newline at end of file
@@ -21,4 +21,11 @@ public interface McpTool {
     public String getName();
     public List<McpServerFeatures.AsyncResourceSpecification> getResourceSpecifications();
     public List<AsyncResourceTemplateSpecification> getResourceTemplateSpecifications();
+
+    /**
+     * Maximum time a call may take, in milliseconds. 0 means the server default applies.
+     */
+    public default long getTimeoutMs() {
+        return 0;
+    }
 }
@@ -0,0 +1,141 @@
+package io.mcp.core.protocol;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.modelcontextprotocol.common.McpTransportContext;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+
+/**
+ * Per-call state shared between the server and a running tool.
+ *
+ * The server places one in the exchange's transport context for every
+ * tools/call. Tools register the futures of their downstream work with
+ * {@link #track(CompletableFuture)}; when the client sends
+ * notifications/cancelled, {@link #cancel()} cancels all of them so e.g. an
+ * HttpClient.sendAsync exchange is aborted instead of running to completion.
+ *
+ * The context also carries the call's deadline, so outbound requests can be
+ * bounded by the time the call has left.
+ */
+public final class ToolCallContext {
+
+    /**
+     * Why a call was cancelled. Only a client cancellation goes unanswered;
+     * the others end the call with an error response.
+     */
+    public enum CancelReason {
+        // The client sent notifications/cancelled
+        CLIENT,
+        // The call ran past its timeout
+        TIMEOUT,
+        // Its session was deleted, expired or evicted
+        SESSION_CLOSED,
+        // The server is shutting down
+        SHUTDOWN
+    }
+
+    /**
+     * Transport context key the server stores the call context under.
+     */
+    public static final String KEY = "tool-call-context";
+
+    private final String sessionId;
+    private final long deadlineNanos;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private volatile CancelReason cancelReason;
+
+    public ToolCallContext(String sessionId) {
+        this(sessionId, 0);
+    }
+
+    /**
+     * @param timeoutMs time the call may take from now, 0 for no deadline
+     */
+    public ToolCallContext(String sessionId, long timeoutMs) {
+        this.sessionId = sessionId;
+        this.deadlineNanos = timeoutMs > 0 ? System.nanoTime() + timeoutMs * 1_000_000L : 0;
+    }
+
+    /**
+     * Get the context of the call an exchange belongs to. Returns a detached
+     * context (never cancelled by the server) when the tool is invoked outside
+     * of a tools/call, e.g. directly from a test.
+     */
+    public static ToolCallContext from(McpAsyncServerExchange exchange) {
+        if (exchange != null) {
+            McpTransportContext transportContext = exchange.transportContext();
+            if (transportContext != null && transportContext.get(KEY) instanceof ToolCallContext context) {
+                return context;
+            }
+            return new ToolCallContext(exchange.sessionId());
+        }
+        return new ToolCallContext(null);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Time left before the call's deadline, or null when it has none.
+     * Never negative: an expired deadline returns Duration.ZERO.
+     */
+    public Duration getRemaining() {
+        if (deadlineNanos == 0) {
+            return null;
+        }
+        long remaining = deadlineNanos - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * Register downstream work so it is cancelled together with the call.
+     * A future tracked after cancellation is cancelled immediately.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        if (future.isDone()) {
+            return future;
+        }
+        pending.add(future);
+        future.whenComplete((result, error) -> pending.remove(future));
+        if (cancelReason != null) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    /**
+     * Cancel the call on the client's request, with every future tracked for it.
+     */
+    public void cancel() {
+        cancel(CancelReason.CLIENT);
+    }
+
+    /**
+     * Cancel the call and every future tracked for it. The first reason given is kept.
+     */
+    public void cancel(CancelReason reason) {
+        synchronized (this) {
+            if (cancelReason == null) {
+                cancelReason = reason;
+            }
+        }
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(true);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    /**
+     * Why the call was cancelled, or null if it was not.
+     */
+    public CancelReason getCancelReason() {
+        return cancelReason;
+    }
+}
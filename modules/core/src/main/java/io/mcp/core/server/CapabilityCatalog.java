@@ -0,0 +1,259 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.mcp.core.protocol.McpService;
+import io.mcp.core.protocol.McpTool;
+import io.modelcontextprotocol.server.McpServerFeatures;
+
+/**
+ * Immutable snapshot of everything a module advertises.
+ *
+ * Built once by {@link StreamableServer#initialize(McpService)}: tool specs are
+ * loaded from the classpath a single time, and the result payloads of
+ * tools/list, prompts/list, resources/list and resources/templates/list are
+ * serialized up front so the list handlers only splice them into the JSON-RPC
+ * envelope. Nothing here is parsed or allocated per request.
+ */
+public final class CapabilityCatalog {
+
+    private final Map<String, McpServerFeatures.AsyncToolSpecification> tools;
+    private final Map<String, Long> toolTimeouts;
+    private final Map<String, McpServerFeatures.AsyncPromptSpecification> prompts;
+    private final Map<String, McpServerFeatures.AsyncResourceSpecification> resources;
+    private final Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> templates;
+
+    private final SerializedString toolsList;
+    private final SerializedString promptsList;
+    private final SerializedString resourcesList;
+    private final SerializedString templatesList;
+
+    private CapabilityCatalog(
+            Map<String, McpServerFeatures.AsyncToolSpecification> tools,
+            Map<String, Long> toolTimeouts,
+            Map<String, McpServerFeatures.AsyncPromptSpecification> prompts,
+            Map<String, McpServerFeatures.AsyncResourceSpecification> resources,
+            Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> templates,
+            SerializedString toolsList,
+            SerializedString promptsList,
+            SerializedString resourcesList,
+            SerializedString templatesList) {
+        this.tools = tools;
+        this.toolTimeouts = toolTimeouts;
+        this.prompts = prompts;
+        this.resources = resources;
+        this.templates = templates;
+        this.toolsList = toolsList;
+        this.promptsList = promptsList;
+        this.resourcesList = resourcesList;
+        this.templatesList = templatesList;
+    }
+
+    /**
+     * Load every spec exposed by the service and freeze the result.
+     */
+    public static CapabilityCatalog build(McpService mcpService, ObjectMapper objectMapper) {
+        Map<String, McpServerFeatures.AsyncToolSpecification> tools = new LinkedHashMap<>();
+        Map<String, Long> toolTimeouts = new HashMap<>();
+        Map<String, McpServerFeatures.AsyncPromptSpecification> prompts = new LinkedHashMap<>();
+        Map<String, McpServerFeatures.AsyncResourceSpecification> resources = new LinkedHashMap<>();
+        Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> templates = new LinkedHashMap<>();
+
+        for (McpTool tool : mcpService.getTools()) {
+            var spec = tool.getToolSpecification();
+            tools.put(spec.tool().name(), spec);
+            long timeoutMs = tool.getTimeoutMs();
+            if (timeoutMs > 0) {
+                toolTimeouts.put(spec.tool().name(), timeoutMs);
+            }
+            debug("  Registered tool:", spec.tool().name(), timeoutMs > 0 ? "timeout: " + timeoutMs + " ms" : "");
+        }
+
+        for (McpServerFeatures.AsyncPromptSpecification spec : mcpService.getPromptSpecifications()) {
+            prompts.put(spec.prompt().name(), spec);
+            debug("  Registered prompt:", spec.prompt().name());
+        }
+
+        for (McpServerFeatures.AsyncResourceSpecification spec : mcpService.getResourceSpecifications()) {
+            resources.put(spec.resource().uri(), spec);
+            debug("  Registered resource:", spec.resource().uri());
+        }
+
+        for (McpServerFeatures.AsyncResourceTemplateSpecification spec : mcpService.getResourceTemplateSpecifications()) {
+            templates.put(spec.resourceTemplate().name(), spec);
+            debug("  Registered template:", spec.resourceTemplate().name());
+        }
+
+        return new CapabilityCatalog(
+                Collections.unmodifiableMap(tools),
+                Map.copyOf(toolTimeouts),
+                Collections.unmodifiableMap(prompts),
+                Collections.unmodifiableMap(resources),
+                Collections.unmodifiableMap(templates),
+                serialize(objectMapper, toolsListResult(objectMapper, tools)),
+                serialize(objectMapper, promptsListResult(objectMapper, prompts)),
+                serialize(objectMapper, resourcesListResult(objectMapper, resources)),
+                serialize(objectMapper, templatesListResult(objectMapper, templates)));
+    }
+
+    public McpServerFeatures.AsyncToolSpecification getTool(String name) {
+        return tools.get(name);
+    }
+
+    /**
+     * Timeout declared in the tool's spec, 0 when it declares none.
+     */
+    public long getToolTimeoutMs(String name) {
+        return toolTimeouts.getOrDefault(name, 0L);
+    }
+
+    public McpServerFeatures.AsyncPromptSpecification getPrompt(String name) {
+        return prompts.get(name);
+    }
+
+    public McpServerFeatures.AsyncResourceSpecification getResource(String uri) {
+        return resources.get(uri);
+    }
+
+    public McpServerFeatures.AsyncResourceTemplateSpecification getTemplate(String name) {
+        return templates.get(name);
+    }
+
+    public Map<String, McpServerFeatures.AsyncToolSpecification> getTools() {
+        return tools;
+    }
+
+    public Map<String, McpServerFeatures.AsyncPromptSpecification> getPrompts() {
+        return prompts;
+    }
+
+    public Map<String, McpServerFeatures.AsyncResourceSpecification> getResources() {
+        return resources;
+    }
+
+    public Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> getTemplates() {
+        return templates;
+    }
+
+    /**
+     * Pre-serialized result object of tools/list.
+     */
+    public SerializedString getToolsListResult() {
+        return toolsList;
+    }
+
+    /**
+     * Pre-serialized result object of prompts/list.
+     */
+    public SerializedString getPromptsListResult() {
+        return promptsList;
+    }
+
+    /**
+     * Pre-serialized result object of resources/list.
+     */
+    public SerializedString getResourcesListResult() {
+        return resourcesList;
+    }
+
+    /**
+     * Pre-serialized result object of resources/templates/list.
+     */
+    public SerializedString getTemplatesListResult() {
+        return templatesList;
+    }
+
+    private static SerializedString serialize(ObjectMapper objectMapper, ObjectNode result) {
+        try {
+            SerializedString serialized = new SerializedString(objectMapper.writeValueAsString(result));
+            // Encode once now so every response copies cached UTF-8 bytes
+            serialized.asUnquotedUTF8();
+            return serialized;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize capability list", e);
+        }
+    }
+
+    private static ObjectNode toolsListResult(ObjectMapper objectMapper,
+            Map<String, McpServerFeatures.AsyncToolSpecification> tools) {
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode toolsArray = result.putArray("tools");
+
+        for (McpServerFeatures.AsyncToolSpecification spec : tools.values()) {
+            ObjectNode toolNode = toolsArray.addObject();
+            toolNode.put("name", spec.tool().name());
+            toolNode.put("description", spec.tool().description());
+            // Convert inputSchema object to JSON node directly (not via toString())
+            toolNode.set("inputSchema", objectMapper.valueToTree(spec.tool().inputSchema()));
+        }
+
+        return result;
+    }
+
+    private static ObjectNode promptsListResult(ObjectMapper objectMapper,
+            Map<String, McpServerFeatures.AsyncPromptSpecification> prompts) {
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode promptsArray = result.putArray("prompts");
+
+        for (McpServerFeatures.AsyncPromptSpecification spec : prompts.values()) {
+            var prompt = spec.prompt();
+            ObjectNode promptNode = promptsArray.addObject();
+            promptNode.put("name", prompt.name());
+            promptNode.put("description", prompt.description());
+
+            ArrayNode argumentsArray = promptNode.putArray("arguments");
+            for (var arg : prompt.arguments()) {
+                ObjectNode argNode = argumentsArray.addObject();
+                argNode.put("name", arg.name());
+                argNode.put("description", arg.description());
+                argNode.put("required", arg.required());
+            }
+        }
+
+        return result;
+    }
+
+    private static ObjectNode resourcesListResult(ObjectMapper objectMapper,
+            Map<String, McpServerFeatures.AsyncResourceSpecification> resources) {
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode resourcesArray = result.putArray("resources");
+
+        for (McpServerFeatures.AsyncResourceSpecification spec : resources.values()) {
+            var resource = spec.resource();
+            ObjectNode resourceNode = resourcesArray.addObject();
+            resourceNode.put("uri", resource.uri());
+            resourceNode.put("name", resource.name());
+            resourceNode.put("description", resource.description());
+            resourceNode.put("mimeType", resource.mimeType());
+        }
+
+        return result;
+    }
+
+    private static ObjectNode templatesListResult(ObjectMapper objectMapper,
+            Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> templates) {
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode templatesArray = result.putArray("resourceTemplates");
+
+        for (McpServerFeatures.AsyncResourceTemplateSpecification spec : templates.values()) {
+            var template = spec.resourceTemplate();
+            ObjectNode templateNode = templatesArray.addObject();
+            templateNode.put("uriTemplate", template.uriTemplate());
+            templateNode.put("name", template.name());
+            templateNode.put("description", template.description());
+            templateNode.put("mimeType", template.mimeType());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import io.mcp.core.utility.ConfigUtility;
+
+/**
+ * HTTP transport McpHttpServer runs on.
+ *
+ * Engines dispatch to plain HttpHandlers, so routing and the MCP handlers are
+ * the same whichever engine serves the connections. A handler path matches
+ * every request URI that starts with it; the longest match wins.
+ *
+ * HTTP_ENGINE selects the engine: "jdk" (default) for the JDK's built-in
+ * server, "virtual" for {@link VirtualThreadHttpEngine}. HTTP_BACKLOG sets the accept queue
+ * length of either.
+ */
+public interface HttpEngine {
+
+    /**
+     * Register the handler for a path prefix. Call before {@link #start()}.
+     */
+    void createContext(String path, HttpHandler handler);
+
+    /**
+     * Executor that runs the handlers.
+     */
+    void setExecutor(Executor executor);
+
+    void start() throws IOException;
+
+    /**
+     * Stop accepting connections and close the listening socket.
+     */
+    void stop(int delaySeconds);
+
+    /**
+     * Name reported in logs and status.
+     */
+    String getName();
+
+    /**
+     * Create the configured engine, bound to the given address.
+     */
+    static HttpEngine create(InetSocketAddress address) throws IOException {
+        int backlog = Math.max(0, ConfigUtility.getInt("HTTP_BACKLOG", 1024));
+        String engine = ConfigUtility.getString("HTTP_ENGINE", "jdk");
+        switch (engine.toLowerCase()) {
+            case "virtual":
+                return new VirtualThreadHttpEngine(address, backlog);
+            case "jdk":
+                return new JdkHttpEngine(address, backlog);
+            default:
+                throw new IllegalArgumentException("Unknown HTTP_ENGINE: " + engine);
+        }
+    }
+}
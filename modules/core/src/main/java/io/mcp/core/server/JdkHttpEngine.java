@@ -0,0 +1,49 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Engine backed by com.sun.net.httpserver.HttpServer.
+ *
+ * Its idle connection interval is the JVM-wide sun.net.httpserver.idleInterval
+ * property, so it is left to the command line; HTTP_KEEPALIVE_MS only applies
+ * to {@link VirtualThreadHttpEngine}.
+ */
+final class JdkHttpEngine implements HttpEngine {
+
+    private final HttpServer httpServer;
+
+    JdkHttpEngine(InetSocketAddress address, int backlog) throws IOException {
+        this.httpServer = HttpServer.create(address, backlog);
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler) {
+        httpServer.createContext(path, handler);
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        httpServer.setExecutor(executor);
+    }
+
+    @Override
+    public void start() {
+        httpServer.start();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+    }
+
+    @Override
+    public String getName() {
+        return "jdk";
+    }
+}
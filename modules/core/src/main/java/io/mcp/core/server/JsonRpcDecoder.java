@@ -0,0 +1,153 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/**
+ * Token-level decoder for JSON-RPC request envelopes.
+ *
+ * Pulls jsonrpc, id, method and params field by field with a JsonParser
+ * instead of building a full tree first. Once the method is known to be
+ * tools/call, params.arguments is bound directly into a Map, so the argument
+ * structure is only built once. Clients that send params before method fall
+ * back to a params tree that is converted afterwards.
+ *
+ * A top-level array is decoded as a JSON-RPC batch.
+ */
+public class JsonRpcDecoder {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    public JsonRpcDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * A decoded message: either one request or a JSON-RPC batch.
+     *
+     * @param requests decoded requests; a batch element that is not an object is null
+     * @param batch true when the body was a JSON array
+     */
+    public record Message(List<JsonRpcRequest> requests, boolean batch) {
+    }
+
+    /**
+     * Decode a single request object or a batch array.
+     *
+     * @throws IllegalArgumentException if the body is valid JSON but neither a request object nor an array
+     * @throws IOException if the body is not valid JSON
+     */
+    public Message decode(String body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return decodeMessage(parser);
+        }
+    }
+
+    /**
+     * Decode a single request object or a batch array from a UTF-8 byte range.
+     */
+    public Message decode(byte[] body, int offset, int length) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body, offset, length)) {
+            return decodeMessage(parser);
+        }
+    }
+
+    private Message decodeMessage(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            return new Message(List.of(decode(parser)), false);
+        }
+
+        List<JsonRpcRequest> requests = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end-of-input in batch");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                requests.add(decode(parser));
+            } else {
+                parser.skipChildren();
+                requests.add(null);
+            }
+        }
+        return new Message(requests, true);
+    }
+
+    /**
+     * Decode a single request object from the parser's next token.
+     */
+    public JsonRpcRequest decode(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("Request must be a JSON object");
+        }
+
+        JsonNode id = null;
+        String method = null;
+        JsonNode params = null;
+        String toolName = null;
+        Map<String, Object> arguments = null;
+        Map<String, Object> meta = null;
+        boolean toolParamsRead = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "id" -> id = value == JsonToken.VALUE_NULL ? NullNode.getInstance() : objectMapper.readTree(parser);
+                case "method" -> method = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "params" -> {
+                    if ("tools/call".equals(method) && value == JsonToken.START_OBJECT) {
+                        // Method is already known: stream the tool params without a tree
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String paramField = parser.currentName();
+                            JsonToken paramValue = parser.nextToken();
+                            switch (paramField) {
+                                case "name" -> toolName = paramValue.isScalarValue() ? parser.getValueAsString() : null;
+                                case "arguments" -> arguments = readMap(parser, paramValue);
+                                case "_meta" -> meta = readMap(parser, paramValue);
+                                default -> parser.skipChildren();
+                            }
+                        }
+                        toolParamsRead = true;
+                    } else {
+                        params = value == JsonToken.VALUE_NULL ? NullNode.getInstance() : objectMapper.readTree(parser);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if ("tools/call".equals(method) && !toolParamsRead && params != null && params.isObject()) {
+            // params arrived before method
+            toolName = params.path("name").asText();
+            arguments = objectMapper.convertValue(params.get("arguments"), MAP_TYPE);
+            meta = objectMapper.convertValue(params.get("_meta"), MAP_TYPE);
+            params = null;
+        }
+
+        return new JsonRpcRequest(id, method, params, toolName, arguments, meta);
+    }
+
+    private Map<String, Object> readMap(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        return objectMapper.readValue(parser, MAP_TYPE);
+    }
+}
@@ -0,0 +1,49 @@
+package io.mcp.core.server;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * Decoded JSON-RPC request envelope.
+ *
+ * For tools/call the params object is never materialized as a tree: the tool
+ * name, arguments and _meta are decoded straight into the shapes the
+ * CallToolRequest needs, and {@code params} stays missing. Every other method
+ * keeps its (small) params as a JsonNode.
+ *
+ * @param id request id, MissingNode when absent (notification)
+ * @param method JSON-RPC method, empty string when absent
+ * @param params params tree, MissingNode for tools/call or when absent
+ * @param toolName tools/call params.name
+ * @param arguments tools/call params.arguments
+ * @param meta tools/call params._meta
+ */
+public record JsonRpcRequest(
+        JsonNode id,
+        String method,
+        JsonNode params,
+        String toolName,
+        Map<String, Object> arguments,
+        Map<String, Object> meta) {
+
+    public JsonRpcRequest {
+        if (id == null) {
+            id = MissingNode.getInstance();
+        }
+        if (method == null) {
+            method = "";
+        }
+        if (params == null) {
+            params = MissingNode.getInstance();
+        }
+    }
+
+    /**
+     * A request without an id is a notification and gets no response.
+     */
+    public boolean isNotification() {
+        return id.isMissingNode();
+    }
+}
@@ -0,0 +1,100 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * JSON-RPC response that streams itself through a JsonGenerator.
+ *
+ * Responses are never built as a tree: the envelope and the result are
+ * written token by token when the ObjectMapper serializes this object, so
+ * writeValueAsBytes goes straight into Jackson's recycled byte buffers and
+ * writeValue(OutputStream, ...) straight onto the wire.
+ */
+public final class JsonRpcResponse extends JsonSerializable.Base {
+
+    /**
+     * Writes the value of the "result" member.
+     */
+    @FunctionalInterface
+    public interface ResultWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private final JsonNode id;
+    private final ResultWriter result;
+    private final int errorCode;
+    private final String errorMessage;
+
+    private JsonRpcResponse(JsonNode id, ResultWriter result, int errorCode, String errorMessage) {
+        this.id = id;
+        this.result = result;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+    public static JsonRpcResponse success(JsonNode id, ResultWriter result) {
+        return new JsonRpcResponse(id, result, 0, null);
+    }
+
+    /**
+     * Success response whose result is already serialized JSON.
+     */
+    public static JsonRpcResponse success(JsonNode id, SerializableString result) {
+        return new JsonRpcResponse(id, gen -> gen.writeRawValue(result), 0, null);
+    }
+
+    public static JsonRpcResponse error(JsonNode id, int code, String message) {
+        return new JsonRpcResponse(id, null, code, message);
+    }
+
+    public JsonNode getId() {
+        return id;
+    }
+
+    public boolean isError() {
+        return result == null;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("jsonrpc", "2.0");
+        gen.writeFieldName("id");
+        if (id == null || id.isMissingNode()) {
+            gen.writeNull();
+        } else {
+            id.serialize(gen, serializers);
+        }
+        if (result != null) {
+            gen.writeFieldName("result");
+            result.write(gen);
+        } else {
+            gen.writeObjectFieldStart("error");
+            gen.writeNumberField("code", errorCode);
+            gen.writeStringField("message", errorMessage);
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,16 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+
+/**
+ * A request's framing cannot be trusted: a bad chunk size or an oversized
+ * head. Answered with 400 (431 for the head) and the connection is closed.
+ */
+final class MalformedRequestException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    MalformedRequestException(String message) {
+        super(message);
+    }
+}
@@ -7,21 +7,39 @@ import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpHandler;
 
 import io.mcp.core.command.HealthCommand;
 import io.mcp.core.command.StatusCommand;
 import io.mcp.core.command.WarmupCommand;
+import io.mcp.core.manager.ModuleManager;
+import io.mcp.core.manager.SessionLimitException;
 import io.mcp.core.protocol.McpCommand;
 import io.mcp.core.protocol.McpService;
+import io.mcp.core.service.CombinedService;
 import io.mcp.core.utility.ConfigUtility;
 import io.mcp.core.utility.ServiceUtility;
 import io.mcp.core.utility.Utility;
@@ -37,18 +55,94 @@ import io.mcp.core.utility.Utility;
  *
  * Streamable HTTP Transport (modern):
  * - POST /{module}/mcp - Handles JSON-RPC requests, can return JSON or SSE stream
+ * - DELETE /{module}/mcp - Terminates the session named by Mcp-Session-Id
+ *
+ * The endpoints at the prefix root (POST {prefix}, {prefix}/sse and
+ * {prefix}/messages) serve a CombinedService of every module, so one session
+ * reaches all tools. COMBINED_ENDPOINT=false
+ * turns them off.
+ *
+ * JSON-RPC requests are completed from the CompletableFuture returned by
+ * StreamableServer, so no thread waits while a tool call is in flight.
+ * HTTP_MAX_IN_FLIGHT caps how many are processed at once; requests over the
+ * cap get 503 with Retry-After. Request bodies are read into pooled buffers
+ * and refused with 413 past HTTP_MAX_BODY_BYTES. Responses are compressed
+ * when the client accepts gzip or deflate.
+ *
+ * Legacy SSE connections hold no thread: the handler returns once the
+ * endpoint event is sent, and one scheduled task writes the keepalive of
+ * every open connection each SSE_KEEPALIVE_MS. Their events are numbered;
+ * a client that reconnects with Last-Event-ID within SSE_RESUME_GRACE_MS
+ * resumes its session and gets the missed events replayed.
+ *
+ * Connections are served by the {@link HttpEngine} selected with HTTP_ENGINE.
+ *
+ * With MODULE_LAZY_INIT (the default) only module names are read before the
+ * port is bound: a module's service is instantiated and its specs loaded on
+ * its first request. MODULE_PREWARM then initializes them in the background
+ * once the server is listening.
  */
-public class McpHttpServer {
+public class McpHttpServer implements ModuleManager.ModuleHost {
 
     private static McpHttpServer currentInstance;
 
+    // Answer to a request that failed after its stream was committed; the request id is unknown here
+    private static final byte[] INTERNAL_ERROR =
+            "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}".getBytes(StandardCharsets.UTF_8);
+
+    // One daemon thread schedules the keepalives of every SSE connection
+    private static final ScheduledExecutorService KEEPALIVE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-sse-keepalive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Map<String, StreamableServer> moduleServers = new ConcurrentHashMap<>();
-    private HttpServer httpServer;
+    // Modules routed but not instantiated yet, with MODULE_LAZY_INIT
+    private final Set<String> pendingModules = ConcurrentHashMap.newKeySet();
+    private final boolean lazyInit;
+    private final boolean prewarm;
+    private volatile boolean combinedPending;
+    // One activation per pending module (and one for the combined endpoint); its requests wait on it
+    private final Map<String, CompletableFuture<Boolean>> activations = new ConcurrentHashMap<>();
+    private final AtomicReference<CompletableFuture<Boolean>> combinedActivation = new AtomicReference<>();
+    // Counts deploys and undeploys, so a combined server built meanwhile is known to be stale
+    private volatile int moduleChanges;
+    // Serves every module at the root endpoints; rebuilt when a module changes
+    private final boolean combinedEnabled;
+    private volatile StreamableServer combinedServer;
+    private HttpEngine httpServer;
+
+    // Request routing: prefix / module / transport suffix
+    private final RouteTable routes = new RouteTable();
+    private volatile boolean streamableEnabled;
+    private volatile boolean sseEnabled;
+
+    // Runtime module loading, when MODULE_DIR is set
+    private ModuleManager moduleManager;
+    private final long moduleDrainMs;
     private final int port;
     private final String pathPrefix;
 
     // Session management for SSE connections
     private final Map<String, SseSession> sseSessions = new ConcurrentHashMap<>();
+    private final long keepAliveIntervalMs;
+    private final long sseResumeGraceNanos;
+    private final int sseReplayEvents;
+    private ScheduledFuture<?> keepAliveTask;
+
+    // Virtual threads run exchange handlers and write completed responses
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Pooled, size-capped request body buffers
+    private final RequestBodyReader bodyReader;
+
+    // Accept-Encoding negotiation and precompressed list results
+    private final ResponseCompressor compressor;
+
+    // Bounds JSON-RPC requests accepted but not yet answered
+    private final int maxInFlight;
+    private final Semaphore inFlight;
 
     public McpHttpServer() {
 
@@ -58,6 +152,17 @@ public class McpHttpServer {
     public McpHttpServer(int port) {
         this.port = port;
         this.pathPrefix = ConfigUtility.getString("HTTP_PREFIX", "/mcp");
+        this.combinedEnabled = !"false".equalsIgnoreCase(ConfigUtility.getString("COMBINED_ENDPOINT", "true"));
+        this.maxInFlight = Math.max(1, ConfigUtility.getInt("HTTP_MAX_IN_FLIGHT", 1024));
+        this.inFlight = new Semaphore(maxInFlight);
+        this.bodyReader = new RequestBodyReader();
+        this.compressor = new ResponseCompressor();
+        this.keepAliveIntervalMs = Math.max(100, ConfigUtility.getInt("SSE_KEEPALIVE_MS", 15000));
+        this.sseResumeGraceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ConfigUtility.getInt("SSE_RESUME_GRACE_MS", 60000)));
+        this.sseReplayEvents = Math.max(1, ConfigUtility.getInt("SSE_REPLAY_EVENTS", 128));
+        this.moduleDrainMs = Math.max(0, ConfigUtility.getInt("MODULE_DRAIN_MS", 30000));
+        this.lazyInit = !"false".equalsIgnoreCase(ConfigUtility.getString("MODULE_LAZY_INIT", "true"));
+        this.prewarm = !"false".equalsIgnoreCase(ConfigUtility.getString("MODULE_PREWARM", "true"));
 
         debug("McpHttpServer constructor with port:", port);
         currentInstance = this;
@@ -91,52 +196,196 @@ public class McpHttpServer {
     }
 
     private void initializeModuleServers() {
-       
+        if (lazyInit) {
+            // Routed from their names; instantiated on first request
+            pendingModules.addAll(ServiceUtility.getRegisteredModules());
+            combinedPending = combinedEnabled;
+            debug("Deferring initialization of", pendingModules.size(), "modules to first use");
+            return;
+        }
+
         List<McpService> services = ServiceUtility.getRegisteredServices();
         debug("Initializing module servers for", services.size(), "services");
 
         for (McpService service : services) {
-            String moduleName = service.getModule();
-            StreamableServer server = new StreamableServer();
-            server.initialize(service);
-            moduleServers.put(moduleName, server);
-            debug("Initialized server for module:", moduleName);
+            deployModule(service);
         }
+        refreshCombined();
     }
 
     /**
-     * Start the server with SSE transport (legacy mode).
+     * Instantiate a pending module and route it to its server. The first
+     * request initializes it without holding a lock; concurrent requests for
+     * the same module wait for that, and other modules are not held up.
      *
-     * SSE transport uses module-specific endpoints:
-     * - GET /{module}/sse - Client connects here to establish SSE stream
-     * - POST /{module}/messages?sessionId=xxx - Client sends requests here
+     * @return whether the module is being served
      */
-    public void startSseServer() throws IOException {
-        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+    private boolean activate(String moduleName) {
+        if (!pendingModules.contains(moduleName)) {
+            return moduleServers.containsKey(moduleName);
+        }
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        CompletableFuture<Boolean> activation = activations.putIfAbsent(moduleName, created);
+        if (activation == null) {
+            activation = created;
+            try {
+                created.complete(initializeModule(moduleName));
+            } catch (RuntimeException | Error e) {
+                debug("!!! Failed to initialize module", moduleName, ":", e.getMessage());
+                created.completeExceptionally(e);
+            } finally {
+                // Served from now on, or tried again by the next request
+                activations.remove(moduleName, created);
+            }
+        }
+        return activation.join();
+    }
+
+    private boolean initializeModule(String moduleName) {
+        long started = System.nanoTime();
+        McpService service = ServiceUtility.getService(moduleName);
+        if (service == null) {
+            pendingModules.remove(moduleName);
+            removeModuleRoutes(moduleName);
+            return false;
+        }
+        StreamableServer server = newModuleServer(service);
+        synchronized (this) {
+            if (!pendingModules.contains(moduleName)) {
+                // Deployed or undeployed while it was initializing
+                server.shutdown();
+                return moduleServers.containsKey(moduleName);
+            }
+            publishModule(service, server);
+        }
+        debug("Initialized module", moduleName, "in", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), "ms");
+        return true;
+    }
+
+    /**
+     * Build the combined server on first use, like {@link #activate}.
+     *
+     * @return whether the combined endpoint is being served
+     */
+    private boolean activateCombined() {
+        if (combinedPending) {
+            CompletableFuture<Boolean> created = new CompletableFuture<>();
+            if (combinedActivation.compareAndSet(null, created)) {
+                try {
+                    initializeCombined();
+                    created.complete(true);
+                } catch (RuntimeException | Error e) {
+                    debug("!!! Failed to initialize the combined endpoint:", e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    combinedActivation.set(null);
+                }
+                created.join();
+            } else {
+                CompletableFuture<Boolean> activation = combinedActivation.get();
+                if (activation != null) {
+                    activation.join();
+                }
+            }
+        }
+        return combinedServer != null;
+    }
 
-        // Register status endpoint
-        httpServer.createContext(applyPathPrefix("/status.json"), this::handleStatusRequest);
+    private void initializeCombined() {
+        long started = System.nanoTime();
+        int changes = moduleChanges;
+        StreamableServer server = newCombinedServer();
+        synchronized (this) {
+            if (!combinedPending) {
+                server.shutdown();
+                return;
+            }
+            combinedPending = false;
+            publishCombined(server);
+            if (changes != moduleChanges) {
+                // A module was deployed or removed while it was built
+                refreshCombined();
+            }
+        }
+        debug("Initialized combined endpoint in", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), "ms");
+    }
 
-        // Register health endpoint (no prefix)
-        httpServer.createContext("/health", this::handleHealthRequest);
-        httpServer.createContext("/_ah/warmup", this::handleWarmupRequest);
+    /**
+     * Initialize every pending module in the background, so the first
+     * requests do not pay for it.
+     */
+    private void prewarmModules() {
+        for (String moduleName : List.copyOf(pendingModules)) {
+            executor.execute(() -> activate(moduleName));
+        }
+        if (combinedPending) {
+            executor.execute(this::activateCombined);
+        }
+    }
 
+    /**
+     * Every module server, and the combined one under {@link CombinedService#MODULE}.
+     * Pending modules are initialized first.
+     */
+    public Map<String, StreamableServer> getModuleServers() {
+        for (String moduleName : List.copyOf(pendingModules)) {
+            try {
+                activate(moduleName);
+            } catch (RuntimeException e) {
+                // Logged by activate; the module stays pending
+            }
+        }
+        try {
+            activateCombined();
+        } catch (RuntimeException e) {
+            // Logged by activateCombined
+        }
 
-        // Register module-specific SSE endpoints
-        for (String moduleName : moduleServers.keySet()) {
-            String ssePath = applyModulePathPrefix(moduleName) + "/sse";
-            String messagePath = applyModulePathPrefix(moduleName) + "/messages";
+        Map<String, StreamableServer> servers = new TreeMap<>(moduleServers);
+        StreamableServer combined = combinedServer;
+        if (combined != null) {
+            servers.put(CombinedService.MODULE, combined);
+        }
+        return servers;
+    }
+
+    /**
+     * Modules served or pending, for the startup log.
+     */
+    private Set<String> getModuleNames() {
+        Set<String> names = new TreeSet<>(moduleServers.keySet());
+        names.addAll(pendingModules);
+        return names;
+    }
 
-            httpServer.createContext(ssePath, exchange -> handleModuleSseConnection(exchange, moduleName));
-            httpServer.createContext(messagePath, exchange -> handleModuleSseMessage(exchange, moduleName));
+    /**
+     * Precompress the static list results of a module. A list response ends
+     * with the result followed by the envelope's closing brace.
+     */
+    private void cacheListResults(StreamableServer server) {
+        CapabilityCatalog catalog = server.getCatalog();
+        for (SerializedString result : List.of(catalog.getToolsListResult(), catalog.getPromptsListResult(),
+                catalog.getResourcesListResult(), catalog.getTemplatesListResult())) {
+            byte[] raw = result.asUnquotedUTF8();
+            byte[] tail = Arrays.copyOf(raw, raw.length + 1);
+            tail[raw.length] = '}';
+            compressor.cacheTail(tail);
         }
+    }
 
-        // Use virtual threads for concurrent SSE connections
-        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
-        httpServer.start();
+    /**
+     * Start the server with SSE transport (legacy mode).
+     *
+     * SSE transport uses module-specific endpoints:
+     * - GET /{module}/sse - Client connects here to establish SSE stream
+     * - POST /{module}/messages?sessionId=xxx - Client sends requests here
+     */
+    public void startSseServer() throws IOException {
+        startEngine(false, true);
+        startKeepAlive();
 
-        debug("MCP SSE Server running on http://localhost:" + port + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
-        for (String moduleName : moduleServers.keySet()) {
+        debug("MCP SSE Server running on http://localhost:" + port + " (engine: " + httpServer.getName() + ")" + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
+        for (String moduleName : getModuleNames()) {
             debug("  Module '" + moduleName + "' SSE endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/sse"));
             debug("  Module '" + moduleName + "' Message endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/messages"));
         }
@@ -153,78 +402,340 @@ public class McpHttpServer {
      * - text/event-stream for streaming responses
      */
     public void startStreamableServer() throws IOException {
-        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        startEngine(true, false);
 
-        // Register status endpoint
-        httpServer.createContext(applyPathPrefix("/status.json"), this::handleStatusRequest);
+        debug("MCP Streamable HTTP Server running on http://localhost:" + port + " (engine: " + httpServer.getName() + ")" + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
+        for (String moduleName : getModuleNames()) {
+            debug("  Module '" + moduleName + "' endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName));
+        }
+    }
 
-        // Register health endpoint (no prefix)
-        httpServer.createContext("/health", this::handleHealthRequest);
-        httpServer.createContext("/_ah/warmup", this::handleWarmupRequest);
+    /**
+     * Start the server with both SSE and Streamable HTTP support.
+     */
+    public void startServer() throws IOException {
+        startEngine(true, true);
+        startKeepAlive();
 
+        debug("MCP HTTP Server running on http://localhost:" + port + " (engine: " + httpServer.getName() + ")" + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
+        for (String moduleName : getModuleNames()) {
+            debug("  Module '" + moduleName + "' Streamable endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/mcp"));
+            debug("  Module '" + moduleName + "' SSE endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/sse"));
+        }
+    }
 
-        // Register module-specific endpoints for streamable HTTP
-        for (String moduleName : moduleServers.keySet()) {
-            String path = applyModulePathPrefix(moduleName);
-            httpServer.createContext(path, exchange -> handleModuleStreamableRequest(exchange, moduleName));
+    /**
+     * Build the route table for the enabled transports and start the engine
+     * with a single dispatcher in front of it.
+     */
+    private synchronized void startEngine(boolean streamable, boolean sse) throws IOException {
+        this.streamableEnabled = streamable;
+        this.sseEnabled = sse;
+
+        routes.add(applyPathPrefix("/status.json"), this::handleStatusRequest);
+        // Health and warmup are not prefixed
+        routes.add("/health", this::handleHealthRequest);
+        routes.add("/_ah/warmup", this::handleWarmupRequest);
+        for (Map.Entry<String, StreamableServer> entry : moduleServers.entrySet()) {
+            addModuleRoutes(entry.getKey(), entry.getValue());
+        }
+        for (String moduleName : pendingModules) {
+            addPendingRoutes(applyModulePathPrefix(moduleName), activating(() -> activate(moduleName)));
+        }
+        if (combinedServer != null) {
+            addCombinedRoutes(combinedServer);
+        } else if (combinedPending) {
+            addPendingRoutes(combinedPath(), applyPathPrefix("/sse"), applyPathPrefix("/messages"),
+                    exactly(combinedPath(), activating(this::activateCombined)));
         }
 
+        httpServer = HttpEngine.create(new InetSocketAddress(port));
+        httpServer.createContext("/", this::dispatch);
         // Use virtual threads for concurrent connections
-        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        httpServer.setExecutor(executor);
         httpServer.start();
+        if (combinedServer != null || combinedPending) {
+            debug("  Combined endpoint of all modules: http://localhost:" + port + (streamable ? combinedPath() : applyPathPrefix("/sse")));
+        }
 
-        debug("MCP Streamable HTTP Server running on http://localhost:" + port + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
-        for (String moduleName : moduleServers.keySet()) {
-            debug("  Module '" + moduleName + "' endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName));
+        String moduleDir = ConfigUtility.getString("MODULE_DIR", null);
+        if (moduleDir != null) {
+            moduleManager = new ModuleManager(this);
+            moduleManager.watch(Path.of(moduleDir));
+        }
+        if (prewarm) {
+            prewarmModules();
         }
     }
 
     /**
-     * Start the server with both SSE and Streamable HTTP support.
+     * Route a module's endpoints of the enabled transports to its server.
+     * Takes effect immediately, including while the server is running.
      */
-    public void startServer() throws IOException {
-        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+    private void addModuleRoutes(String moduleName, StreamableServer server) {
+        String modulePath = applyModulePathPrefix(moduleName);
+        if (streamableEnabled) {
+            routes.add(modulePath, exchange -> handleStreamableRequest(exchange, server));
+        }
+        if (sseEnabled) {
+            routes.add(modulePath + "/sse", exchange -> handleSseConnection(exchange, server, modulePath + "/messages"));
+            routes.add(modulePath + "/messages", exchange -> handleSseMessage(exchange, server));
+        }
+    }
 
-        // Register status endpoint
-        httpServer.createContext(applyPathPrefix("/status.json"), this::handleStatusRequest);
+    /**
+     * Handler of a pending endpoint: activate it, then dispatch the request
+     * to the routes the activation added.
+     */
+    private HttpHandler activating(BooleanSupplier activation) {
+        return exchange -> {
+            boolean served;
+            try {
+                served = activation.getAsBoolean();
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal Server Error: " + e.getMessage());
+                return;
+            }
+            if (served) {
+                dispatch(exchange);
+            } else {
+                sendError(exchange, 404, "Not Found");
+            }
+        };
+    }
 
-        // Register health endpoint (no prefix)
-        httpServer.createContext("/health", this::handleHealthRequest);
-        httpServer.createContext("/_ah/warmup", this::handleWarmupRequest);
+    /**
+     * Route a pending module's endpoints to the handler that initializes it.
+     */
+    private void addPendingRoutes(String modulePath, HttpHandler activation) {
+        addPendingRoutes(modulePath, modulePath + "/sse", modulePath + "/messages", activation);
+    }
 
-        // Register module-specific endpoints for both transport types
-        for (String moduleName : moduleServers.keySet()) {
-            String mcpPath = applyModulePathPrefix(moduleName);
-            String ssePath = applyModulePathPrefix(moduleName) + "/sse";
-            String messagePath = applyModulePathPrefix(moduleName) + "/messages";
+    private void addPendingRoutes(String streamablePath, String ssePath, String messagesPath, HttpHandler activation) {
+        if (streamableEnabled) {
+            routes.add(streamablePath, activation);
+        }
+        if (sseEnabled) {
+            routes.add(ssePath, activation);
+            routes.add(messagesPath, activation);
+        }
+    }
 
-            httpServer.createContext(mcpPath, exchange -> handleModuleStreamableRequest(exchange, moduleName));
-            httpServer.createContext(ssePath, exchange -> handleModuleSseConnection(exchange, moduleName));
-            httpServer.createContext(messagePath, exchange -> handleModuleSseMessage(exchange, moduleName));
+    /**
+     * Route the root endpoints to the combined server.
+     */
+    private void addCombinedRoutes(StreamableServer server) {
+        if (streamableEnabled) {
+            routes.add(combinedPath(), exactly(combinedPath(), exchange -> handleStreamableRequest(exchange, server)));
+        }
+        if (sseEnabled) {
+            routes.add(applyPathPrefix("/sse"), exchange -> handleSseConnection(exchange, server, applyPathPrefix("/messages")));
+            routes.add(applyPathPrefix("/messages"), exchange -> handleSseMessage(exchange, server));
         }
+    }
 
-        // Use virtual threads for concurrent connections
-        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
-        httpServer.start();
+    /**
+     * Path of the combined Streamable HTTP endpoint: the prefix root, e.g. /mcp.
+     */
+    private String combinedPath() {
+        String path = applyPathPrefix("/");
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
 
-        debug("MCP HTTP Server running on http://localhost:" + port + (pathPrefix.isEmpty() ? "" : " (prefix: " + pathPrefix + ")"));
-        for (String moduleName : moduleServers.keySet()) {
-            debug("  Module '" + moduleName + "' Streamable endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/mcp"));
-            debug("  Module '" + moduleName + "' SSE endpoint: http://localhost:" + port + applyPathPrefix("/" + moduleName + "/sse"));
+    /**
+     * Serve a path but not the paths below it. The prefix root would otherwise
+     * catch every unrouted request under the prefix.
+     */
+    private HttpHandler exactly(String path, HttpHandler handler) {
+        return exchange -> {
+            String requested = exchange.getRequestURI().getRawPath();
+            if (requested.length() > 1 && requested.endsWith("/")) {
+                requested = requested.substring(0, requested.length() - 1);
+            }
+            if (requested.equals(path)) {
+                handler.handle(exchange);
+            } else {
+                sendError(exchange, 404, "Not Found");
+            }
+        };
+    }
+
+    private void removeModuleRoutes(String moduleName) {
+        String modulePath = applyModulePathPrefix(moduleName);
+        routes.remove(modulePath);
+        routes.remove(modulePath + "/sse");
+        routes.remove(modulePath + "/messages");
+    }
+
+    /**
+     * Serve a module, swapping a new StreamableServer in behind its routes.
+     * Requests already dispatched finish on the previous server, which is
+     * shut down once its tool calls drained or MODULE_DRAIN_MS passed.
+     *
+     * @return completes when the previous version is shut down
+     */
+    @Override
+    public synchronized CompletableFuture<Void> deploy(McpService service) {
+        moduleChanges++;
+        CompletableFuture<Void> retired = deployModule(service);
+        return CompletableFuture.allOf(retired, refreshCombined());
+    }
+
+    private CompletableFuture<Void> deployModule(McpService service) {
+        return publishModule(service, newModuleServer(service));
+    }
+
+    private StreamableServer newModuleServer(McpService service) {
+        StreamableServer server = new StreamableServer();
+        server.initialize(service);
+        cacheListResults(server);
+        return server;
+    }
+
+    /**
+     * Route a module to its initialized server, retiring the previous one.
+     */
+    private CompletableFuture<Void> publishModule(McpService service, StreamableServer server) {
+        String moduleName = service.getModule();
+        StreamableServer previous = moduleServers.put(moduleName, server);
+        pendingModules.remove(moduleName);
+        addModuleRoutes(moduleName, server);
+        ServiceUtility.registerService(service);
+        debug(previous != null ? "Swapped server for module:" : "Added server for module:", moduleName);
+        return previous != null ? drain(moduleName, previous) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Stop serving a module: remove its routes, close its legacy SSE
+     * sessions and shut its server down once drained.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> undeploy(String moduleName) {
+        moduleChanges++;
+        StreamableServer previous = moduleServers.remove(moduleName);
+        if (previous == null) {
+            if (pendingModules.remove(moduleName)) {
+                removeModuleRoutes(moduleName);
+                ServiceUtility.unregisterService(moduleName);
+                debug("Removed pending module:", moduleName);
+                return refreshCombined();
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        removeModuleRoutes(moduleName);
+        ServiceUtility.unregisterService(moduleName);
+        closeSseSessions(previous);
+        debug("Removed server for module:", moduleName);
+        return CompletableFuture.allOf(drain(moduleName, previous), refreshCombined());
+    }
+
+    /**
+     * Rebuild the combined server from the registered modules and swap it in
+     * behind the root endpoints. Its sessions do not carry over: the tool set
+     * they negotiated is gone.
+     *
+     * @return completes when the previous combined server is shut down
+     */
+    private CompletableFuture<Void> refreshCombined() {
+        if (!combinedEnabled || combinedPending) {
+            // A pending combined endpoint is built from the registry on first use
+            return CompletableFuture.completedFuture(null);
+        }
+        return publishCombined(newCombinedServer());
+    }
+
+    private StreamableServer newCombinedServer() {
+        StreamableServer server = new StreamableServer();
+        server.initialize(new CombinedService(ServiceUtility.getRegisteredServices()));
+        cacheListResults(server);
+        return server;
+    }
+
+    private CompletableFuture<Void> publishCombined(StreamableServer server) {
+        StreamableServer previous = combinedServer;
+        combinedServer = server;
+        addCombinedRoutes(server);
+        if (previous == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        closeSseSessions(previous);
+        return drain(CombinedService.MODULE, previous);
+    }
+
+    private void closeSseSessions(StreamableServer server) {
+        for (SseSession session : sseSessions.values()) {
+            if (session.getServer() == server) {
+                session.close();
+            }
         }
     }
 
+    /**
+     * Wait for a retired server's tool calls to finish, then shut it down.
+     */
+    private CompletableFuture<Void> drain(String moduleName, StreamableServer server) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(moduleDrainMs);
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        Executor poll = CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS, executor);
+        Runnable check = new Runnable() {
+            @Override
+            public void run() {
+                int remaining = server.getInFlightCallCount();
+                if (remaining > 0 && System.nanoTime() < deadline) {
+                    poll.execute(this);
+                    return;
+                }
+                if (remaining > 0) {
+                    debug("Drain timed out for module", moduleName, "- cancelling", remaining, "calls");
+                }
+                server.shutdown();
+                drained.complete(null);
+            }
+        };
+        executor.execute(check);
+        return drained;
+    }
+
+    /**
+     * Single engine handler: route the request path through the route table.
+     */
+    private void dispatch(HttpExchange exchange) throws IOException {
+        HttpHandler handler = routes.match(exchange.getRequestURI().getRawPath());
+        if (handler == null) {
+            sendError(exchange, 404, "Not Found");
+            return;
+        }
+        handler.handle(exchange);
+    }
+
     /**
      * Stop the HTTP server.
      */
     public void stop() {
         if (httpServer != null) {
+            if (moduleManager != null) {
+                moduleManager.close();
+                moduleManager = null;
+            }
+            if (keepAliveTask != null) {
+                keepAliveTask.cancel(false);
+                keepAliveTask = null;
+            }
+
             // Close all SSE sessions
             for (SseSession session : sseSessions.values()) {
                 session.close();
             }
             sseSessions.clear();
 
+            // Drop streamable sessions and stop their expiry timers
+            for (StreamableServer server : moduleServers.values()) {
+                server.shutdown();
+            }
+            if (combinedServer != null) {
+                combinedServer.shutdown();
+            }
+
             httpServer.stop(0);
             httpServer = null;
             currentInstance = null;
@@ -233,35 +744,34 @@ public class McpHttpServer {
     }
 
     /**
-     * Handle module-specific Streamable HTTP POST requests.
+     * Handle Streamable HTTP POST requests with specified server.
      */
-    private void handleModuleStreamableRequest(HttpExchange exchange, String moduleName) throws IOException {
-        StreamableServer server = moduleServers.get(moduleName);
-        if (server == null) {
-            sendError(exchange, 404, "Module not found: " + moduleName);
+    private void handleStreamableRequest(HttpExchange exchange, StreamableServer server) throws IOException {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            handleSessionDelete(exchange, server);
             return;
         }
 
-        handleStreamableRequest(exchange, server);
-    }
-
-    /**
-     * Handle Streamable HTTP POST requests with specified server.
-     */
-    private void handleStreamableRequest(HttpExchange exchange, StreamableServer server) throws IOException {
         if (!"POST".equals(exchange.getRequestMethod())) {
             sendError(exchange, 405, "Method Not Allowed");
             return;
         }
 
-        try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-            //debug("Streamable request:", requestBody);
+        if (!inFlight.tryAcquire()) {
+            sendBusy(exchange);
+            return;
+        }
 
-            // Get or create session ID from header
+        boolean dispatched = false;
+        // The body is decoded before dispatch returns, so its buffer goes back to the pool here
+        try (RequestBodyReader.Body body = bodyReader.read(exchange)) {
+            // Session ids are minted here; one the server does not know (or has expired) means re-initialize
             String sessionId = exchange.getRequestHeaders().getFirst("Mcp-Session-Id");
             if (sessionId == null) {
-                sessionId = UUID.randomUUID().toString();
+                sessionId = server.openSession(null);
+            } else if (!server.touchSession(sessionId)) {
+                sendError(exchange, 404, "Session not found: " + sessionId);
+                return;
             }
 
             // Check Accept header for SSE preference
@@ -270,134 +780,231 @@ public class McpHttpServer {
 
             if (preferSse) {
                 // Return response as SSE stream
-                handleStreamableWithSse(exchange, requestBody, sessionId, server);
+                handleStreamableWithSse(exchange, server, body, sessionId);
             } else {
-                // Return response as JSON
-                String response = server.handleRequestSync(requestBody, sessionId);
-
-                // Notifications return null - send 202 Accepted with no body
-                if (response == null) {
-                    exchange.getResponseHeaders().set("Mcp-Session-Id", sessionId);
-                    exchange.sendResponseHeaders(202, -1);
-                    return;
-                }
-
-                exchange.getResponseHeaders().set("Content-Type", server.getContentType());
-                exchange.getResponseHeaders().set("Mcp-Session-Id", sessionId);
-                byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-                exchange.sendResponseHeaders(200, responseBytes.length);
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(responseBytes);
-                }
+                // Return response as JSON once the request completes
+                String id = sessionId;
+                server.handleRequestBytes(body.buffer(), 0, body.length(), sessionId)
+                        .whenCompleteAsync((bytes, error) -> completeJson(exchange, server, id, bytes, error), executor);
             }
+            dispatched = true;
+        } catch (PayloadTooLargeException e) {
+            debug("Rejecting streamable request:", e.getMessage());
+            sendError(exchange, 413, "Payload Too Large: " + e.getMessage());
+        } catch (SessionLimitException e) {
+            sendSessionLimit(exchange, e);
+        } catch (MalformedRequestException e) {
+            debug("Rejecting streamable request:", e.getMessage());
+            sendError(exchange, 400, "Bad Request: " + e.getMessage());
         } catch (Exception e) {
             debug("Error handling streamable request:", e.getMessage());
             sendError(exchange, 500, "Internal Server Error: " + e.getMessage());
+        } finally {
+            if (!dispatched) {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Handle DELETE /{module}/mcp: the client is done with its session.
+     */
+    private void handleSessionDelete(HttpExchange exchange, StreamableServer server) throws IOException {
+        String sessionId = exchange.getRequestHeaders().getFirst("Mcp-Session-Id");
+        if (sessionId == null) {
+            sendError(exchange, 400, "Missing Mcp-Session-Id header");
+            return;
+        }
+
+        if (!server.closeSession(sessionId)) {
+            sendError(exchange, 404, "Session not found: " + sessionId);
+            return;
+        }
+
+        debug("Session terminated by client:", sessionId);
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    /**
+     * Write a completed Streamable HTTP JSON response and close the exchange.
+     */
+    private void completeJson(HttpExchange exchange, StreamableServer server, String sessionId, byte[] response, Throwable error) {
+        try {
+            if (error != null) {
+                debug("Error handling streamable request:", error.getMessage());
+                sendError(exchange, 500, "Internal Server Error: " + error.getMessage());
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Mcp-Session-Id", sessionId);
+
+            // Notifications return null - send 202 Accepted with no body
+            if (response == null) {
+                exchange.sendResponseHeaders(202, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", server.getContentType());
+            if (compressor.isEnabled()) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+            String encoding = compressor.selectEncoding(exchange, response.length);
+            if (encoding != null) {
+                response = compressor.compress(response, encoding);
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        } catch (IOException e) {
+            debug("Failed to write streamable response:", e.getMessage());
+        } finally {
+            exchange.close();
+            inFlight.release();
         }
     }
 
     /**
      * Handle Streamable HTTP request with SSE response.
+     *
+     * Headers go out before the request is dispatched, so notifications the
+     * tools emit (progress, partial results) are streamed as events while the
+     * call runs. The response is the last event; the stream then closes.
      */
-    private void handleStreamableWithSse(HttpExchange exchange, String requestBody, String sessionId, StreamableServer server) throws IOException {
+    private void handleStreamableWithSse(HttpExchange exchange, StreamableServer server, RequestBodyReader.Body body, String sessionId) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
         exchange.getResponseHeaders().set("Cache-Control", "no-cache");
         exchange.getResponseHeaders().set("Connection", "keep-alive");
         exchange.getResponseHeaders().set("Mcp-Session-Id", sessionId);
+        String encoding = compressor.selectEncoding(exchange, -1);
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
         exchange.sendResponseHeaders(200, 0);
 
-        try (OutputStream os = exchange.getResponseBody()) {
-            // Process request and send response as SSE event
-            String response = server.handleRequestSync(requestBody, sessionId);
+        // Each event is flushed through the compressor, so it is not held back
+        OutputStream os = encoding != null ? ResponseCompressor.wrap(exchange.getResponseBody(), encoding) : exchange.getResponseBody();
+        Consumer<byte[]> notificationSink = notification -> {
+            try {
+                writeSseMessage(os, notification);
+            } catch (IOException e) {
+                debug("Failed to stream notification:", e.getMessage());
+            }
+        };
 
-            // Notifications return null - no SSE event to send
-            if (response != null) {
-                String sseEvent = "event: message\ndata: " + response.replace("\n", "\ndata: ") + "\n\n";
-                os.write(sseEvent.getBytes(StandardCharsets.UTF_8));
-                os.flush();
+        server.handleRequestBytes(body.buffer(), 0, body.length(), sessionId, notificationSink).whenCompleteAsync((bytes, error) -> {
+            try {
+                if (error != null) {
+                    // The 200 is already sent, so the error goes out as the response event
+                    debug("Error handling streamable request:", error.getMessage());
+                    writeSseMessage(os, INTERNAL_ERROR);
+                } else if (bytes != null) {
+                    // Notifications return null - no SSE event to send
+                    writeSseMessage(os, bytes);
+                }
+            } catch (IOException e) {
+                debug("Failed to write SSE response:", e.getMessage());
+            } finally {
+                synchronized (os) {
+                    try {
+                        os.close();
+                    } catch (IOException ignored) {}
+                }
+                exchange.close();
+                inFlight.release();
             }
-        }
+        }, executor);
     }
 
     /**
-     * Handle module-specific SSE connection establishment (GET /{module}/sse).
+     * Write one JSON-RPC message as an SSE event. Streamed notifications and
+     * the final response share the stream, so writes are serialized on it.
      */
-    private void handleModuleSseConnection(HttpExchange exchange, String moduleName) throws IOException {
-        StreamableServer server = moduleServers.get(moduleName);
-        if (server == null) {
-            sendError(exchange, 404, "Module not found: " + moduleName);
-            return;
+    private static void writeSseMessage(OutputStream os, byte[] message) throws IOException {
+        synchronized (os) {
+            SseFrameEncoder.writeMessage(os, message);
+            os.flush();
         }
-
-        handleSseConnection(exchange, server, moduleName);
     }
 
     /**
-     * Handle SSE connection establishment with specified server and module.
+     * Handle SSE connection establishment with specified server; the endpoint
+     * event points the client at messagesPath.
      */
-    private void handleSseConnection(HttpExchange exchange, StreamableServer server, String moduleName) throws IOException {
+    private void handleSseConnection(HttpExchange exchange, StreamableServer server, String messagesPath) throws IOException {
         if (!"GET".equals(exchange.getRequestMethod())) {
             sendError(exchange, 405, "Method Not Allowed");
             return;
         }
 
-        String sessionId = UUID.randomUUID().toString();
-        debug("New SSE connection, sessionId:", sessionId);
+        // A reconnecting client names its session and the last event it saw
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        SseSession session = lastEventId != null ? sseSessions.get(SseSession.sessionIdOf(lastEventId)) : null;
+        long replayAfterSeq = -1;
+        try {
+            if (session != null && session.getServer() == server && session.isOpen()) {
+                replayAfterSeq = Math.max(0, SseSession.sequenceOf(lastEventId));
+                server.openSession(session.getSessionId());
+                debug("Resuming SSE connection, sessionId:", session.getSessionId(), "after event:", replayAfterSeq);
+            } else {
+                String sessionId = server.openSession(null);
+                session = new SseSession(sessionId, server, sseReplayEvents, () -> sseSessions.remove(sessionId));
+                sseSessions.put(sessionId, session);
+                debug("New SSE connection, sessionId:", sessionId);
+            }
+        } catch (SessionLimitException e) {
+            sendSessionLimit(exchange, e);
+            return;
+        }
 
         // Set SSE headers
         exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
         exchange.getResponseHeaders().set("Cache-Control", "no-cache");
         exchange.getResponseHeaders().set("Connection", "keep-alive");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        String encoding = compressor.selectEncoding(exchange, -1);
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
         exchange.sendResponseHeaders(200, 0);
+        OutputStream os = encoding != null ? ResponseCompressor.wrap(exchange.getResponseBody(), encoding) : exchange.getResponseBody();
 
-        OutputStream os = exchange.getResponseBody();
-        
-        // Create session
-        SseSession session = new SseSession(sessionId, os);
-        sseSessions.put(sessionId, session);
-
-        try {
-            // Send endpoint event with message URL
-            String messageUrl = "http://localhost:" + port + applyPathPrefix("/" + moduleName + "/messages") + "?sessionId=" + sessionId;
-            String endpointEvent = "event: endpoint\ndata: " + messageUrl + "\n\n";
-            os.write(endpointEvent.getBytes(StandardCharsets.UTF_8));
-            os.flush();
-            debug("Sent endpoint event for module", moduleName + ":", messageUrl);
-
-            // Keep connection alive until closed
-            // The connection will be closed when the client disconnects
-            // or when we call session.close()
-            while (session.isOpen()) {
-                try {
-                    Thread.sleep(1000);
-                    // Send keepalive
-                    os.write(": keepalive\n\n".getBytes(StandardCharsets.UTF_8));
-                    os.flush();
-                } catch (Exception e) {
-                    debug("SSE connection closed:", sessionId);
-                    break;
-                }
-            }
-        } finally {
-            sseSessions.remove(sessionId);
-            try {
-                os.close();
-            } catch (Exception ignored) {}
+        // Send endpoint event with message URL, then anything the client missed
+        String messageUrl = "http://localhost:" + port + messagesPath + "?sessionId=" + session.getSessionId();
+        String endpointEvent = "event: endpoint\ndata: " + messageUrl + "\n\n";
+        if (session.attach(exchange, os, endpointEvent.getBytes(StandardCharsets.UTF_8), replayAfterSeq)) {
+            debug("Sent endpoint event:", messageUrl);
         }
+        // Return without closing: the keepalive task detects when the client disconnects
     }
 
     /**
-     * Handle module-specific SSE message requests (POST /{module}/messages).
+     * Start the shared keepalive task if it is not running.
      */
-    private void handleModuleSseMessage(HttpExchange exchange, String moduleName) throws IOException {
-        StreamableServer server = moduleServers.get(moduleName);
-        if (server == null) {
-            sendError(exchange, 404, "Module not found: " + moduleName);
-            return;
+    private synchronized void startKeepAlive() {
+        if (keepAliveTask == null) {
+            keepAliveTask = KEEPALIVE_SCHEDULER.scheduleAtFixedRate(this::sendKeepAlives,
+                    keepAliveIntervalMs, keepAliveIntervalMs, TimeUnit.MILLISECONDS);
         }
+    }
 
-        handleSseMessage(exchange, server);
+    /**
+     * Write one keepalive to every open SSE connection. Writes run on virtual
+     * threads so a stalled client cannot hold up the others; a connection whose
+     * previous keepalive is still being written is skipped. Sessions detached
+     * for longer than the resume grace period are closed.
+     */
+    private void sendKeepAlives() {
+        for (SseSession session : sseSessions.values()) {
+            if (session.isDetachedLongerThan(sseResumeGraceNanos)) {
+                debug("SSE session not resumed, closing:", session.getSessionId());
+                session.close();
+            } else if (session.beginKeepAlive()) {
+                executor.execute(session::sendKeepAlive);
+            }
+        }
     }
 
     /**
@@ -419,17 +1026,7 @@ public class McpHttpServer {
         }
 
         // Extract session ID from query parameter
-        String query = exchange.getRequestURI().getQuery();
-        String sessionId = null;
-        if (query != null) {
-            for (String param : query.split("&")) {
-                String[] pair = param.split("=");
-                if (pair.length == 2 && "sessionId".equals(pair[0])) {
-                    sessionId = pair[1];
-                    break;
-                }
-            }
-        }
+        String sessionId = RouteTable.queryParam(exchange.getRequestURI().getRawQuery(), "sessionId");
 
         if (sessionId == null) {
             sendError(exchange, 400, "Missing sessionId parameter");
@@ -442,19 +1039,36 @@ public class McpHttpServer {
             return;
         }
 
-        try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-            debug("SSE message request:", requestBody);
+        if (!inFlight.tryAcquire()) {
+            sendBusy(exchange);
+            return;
+        }
 
-            // Process the request
-            String response = server.handleRequestSync(requestBody, sessionId);
+        boolean dispatched = false;
+        try (RequestBodyReader.Body body = bodyReader.read(exchange)) {
+            debug("SSE message request:", sessionId, "bytes:", body.length());
 
-            // Send response via SSE stream (null means notification - no response needed)
-            if (response != null) {
-                session.sendMessage(response);
-            }
+            String id = sessionId;
+            // Notifications emitted while the call runs go out on the SSE stream too
+            Consumer<byte[]> notificationSink = session::sendMessage;
 
-            // Send accepted response to POST request
+            // Process the request; the response goes out on the SSE stream when it completes
+            server.handleRequestBytes(body.buffer(), 0, body.length(), sessionId, notificationSink).whenCompleteAsync((response, error) -> {
+                try {
+                    if (error != null) {
+                        debug("Error handling SSE message:", id, error.getMessage());
+                        session.sendMessage(INTERNAL_ERROR);
+                    } else if (response != null) {
+                        // null means notification - no response needed; buffered for replay if detached
+                        session.sendMessage(response);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            }, executor);
+            dispatched = true;
+
+            // Acknowledge the POST without waiting for the result
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
             String accepted = "{\"status\":\"accepted\"}";
@@ -463,9 +1077,19 @@ public class McpHttpServer {
             try (OutputStream os = exchange.getResponseBody()) {
                 os.write(acceptedBytes);
             }
+        } catch (PayloadTooLargeException e) {
+            debug("Rejecting SSE message:", e.getMessage());
+            sendError(exchange, 413, "Payload Too Large: " + e.getMessage());
+        } catch (MalformedRequestException e) {
+            debug("Rejecting SSE message:", e.getMessage());
+            sendError(exchange, 400, "Bad Request: " + e.getMessage());
         } catch (Exception e) {
             debug("Error handling SSE message:", e.getMessage());
             sendError(exchange, 500, "Internal Server Error: " + e.getMessage());
+        } finally {
+            if (!dispatched) {
+                inFlight.release();
+            }
         }
     }
 
@@ -525,7 +1149,8 @@ public class McpHttpServer {
      * Send an error response.
      */
     private void sendError(HttpExchange exchange, int code, String message) throws IOException {
-        String response = "{\"error\":\"" + message + "\"}";
+        // Messages can carry client-supplied values such as a session id
+        String response = "{\"error\":\"" + new String(new SerializedString(message).asQuotedChars()) + "\"}";
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.sendResponseHeaders(code, responseBytes.length);
@@ -534,6 +1159,49 @@ public class McpHttpServer {
         }
     }
 
+    /**
+     * Reject a request because the in-flight cap is reached.
+     */
+    private void sendBusy(HttpExchange exchange) throws IOException {
+        debug("Rejecting request, in-flight limit reached:", maxInFlight);
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Service Unavailable: too many requests in flight");
+    }
+
+    /**
+     * Reject a new session because every session is in use.
+     */
+    private void sendSessionLimit(HttpExchange exchange, SessionLimitException e) throws IOException {
+        debug("Rejecting new session:", e.getMessage());
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Service Unavailable: " + e.getMessage());
+    }
+
+    /**
+     * Number of JSON-RPC requests currently being processed.
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Maximum number of JSON-RPC requests processed at once.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Live session counters of each module server.
+     */
+    public Map<String, Object> getSessionMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        for (Map.Entry<String, StreamableServer> entry : moduleServers.entrySet()) {
+            metrics.put(entry.getKey(), entry.getValue().getSessionMetrics());
+        }
+        return metrics;
+    }
+
     /**
      * Get the port this server is running on.
      */
@@ -590,37 +1258,4 @@ public class McpHttpServer {
 
         return health;
     }
-
-    /**
-     * SSE Session holder.
-     */
-    private static class SseSession {
-        private final String sessionId;
-        private final OutputStream outputStream;
-        private volatile boolean open = true;
-
-        SseSession(String sessionId, OutputStream outputStream) {
-            this.sessionId = sessionId;
-            this.outputStream = outputStream;
-        }
-
-        synchronized void sendMessage(String message) throws IOException {
-            if (!open) return;
-            String sseEvent = "event: message\ndata: " + message.replace("\n", "\ndata: ") + "\n\n";
-            outputStream.write(sseEvent.getBytes(StandardCharsets.UTF_8));
-            outputStream.flush();
-            debug("Sent SSE message to session:", sessionId);
-        }
-
-        boolean isOpen() {
-            return open;
-        }
-
-        void close() {
-            open = false;
-            try {
-                outputStream.close();
-            } catch (Exception ignored) {}
-        }
-    }
 }
@@ -1,12 +1,25 @@
 package io.mcp.core.server;
 
-import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.mcp.core.protocol.McpService;
+import io.mcp.core.utility.ConfigUtility;
 import io.mcp.core.utility.Utility;
 
 /**
@@ -15,13 +28,72 @@ import io.mcp.core.utility.Utility;
  * This replaces the official SDK server because the async transport provider
  * has threading issues in native images. Instead, it uses the same StreamableServer
  * approach as the HTTP server, adapted for stdio communication.
+ *
+ * Messages are dispatched concurrently on virtual threads, so a slow tool call
+ * does not hold up the ones behind it. Responses are written as they complete,
+ * possibly out of order (clients correlate them by id), through one serialized
+ * writer that tool notifications share. At most STDIO_MAX_IN_FLIGHT messages
+ * (default 64) are processed at once; past that, stdin is not read until one
+ * completes.
+ *
+ * Stdin and stdout are used as raw file channels: messages are split out of
+ * the input bytes by {@link StdioFrameReader} and handed to the decoder as
+ * bytes, and ready output is coalesced into one write by {@link StdioBatchWriter}.
+ * STDIO_BUFFER_BYTES (default 64 KiB) sizes both buffers.
+ *
+ * Messages are one per line by default. With {@link Framing#CONTENT_LENGTH}
+ * they are framed by LSP-style Content-Length headers in both directions, and
+ * may be up to STDIO_MAX_MESSAGE_BYTES (default 64 MiB).
  */
 public class McpStdioServer {
 
+    /**
+     * How messages are delimited on the pipe.
+     */
+    public enum Framing {
+        LINE,
+        CONTENT_LENGTH;
+
+        /**
+         * Parse "line" or "content-length"; null and unknown values mean LINE.
+         */
+        public static Framing from(String value) {
+            if (value != null && value.trim().replace('_', '-').equalsIgnoreCase("content-length")) {
+                return CONTENT_LENGTH;
+            }
+            return LINE;
+        }
+    }
+
+    // Use a fixed session ID for stdio (single session)
+    private static final String SESSION_ID = "stdio-session";
+
+    private static final byte[] INTERNAL_ERROR = "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32000,\"message\":\"Internal server error\"},\"id\":null}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final int PARSE_ERROR = -32700;
+
     private final StreamableServer mcpServer;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final int bufferSize;
+    private final int maxMessageBytes;
+    private final Framing framing;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private StdioBatchWriter writer;
 
     public McpStdioServer() {
+        this(Framing.LINE);
+    }
+
+    public McpStdioServer(Framing framing) {
+        this.framing = framing;
         this.mcpServer = new StreamableServer();
+        this.maxInFlight = Math.max(1, ConfigUtility.getInt("STDIO_MAX_IN_FLIGHT", 64));
+        this.inFlight = new Semaphore(maxInFlight);
+        this.bufferSize = ConfigUtility.getInt("STDIO_BUFFER_BYTES", 64 * 1024);
+        this.maxMessageBytes = Math.max(1, ConfigUtility.getInt("STDIO_MAX_MESSAGE_BYTES", 64 * 1024 * 1024));
     }
 
     /**
@@ -41,46 +113,100 @@ public class McpStdioServer {
      * @throws IOException if there's an error reading from stdin or writing to stdout
      */
     public void start() throws IOException {
-        Utility.debug("McpStdioServer starting...");
+        // The raw descriptors, bypassing the buffering of System.in and System.out
+        start(new FileInputStream(FileDescriptor.in).getChannel(), new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Serve messages from a stream instead of stdin, e.g. an embedding process or a test.
+     */
+    public void start(InputStream input, OutputStream output) throws IOException {
+        start(Channels.newChannel(input), Channels.newChannel(output));
+    }
+
+    /**
+     * Serve JSON-RPC messages from a channel until it ends,
+     * then wait for the messages still in flight to be answered.
+     */
+    public void start(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        Utility.debug("McpStdioServer starting... (framing: " + framing + ", max in flight: " + maxInFlight + ")");
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
-        PrintWriter writer = new PrintWriter(System.out, true);
+        StdioFrameReader reader = new StdioFrameReader(input, bufferSize, framing, maxMessageBytes, this::writeParseError);
+        writer = new StdioBatchWriter(output, bufferSize, framing);
 
-        String line;
+        byte[] message;
         int messageCount = 0;
 
-        while ((line = reader.readLine()) != null) {
-            messageCount++;
-            Utility.debug("Received message #" + messageCount + ": " + line);
+        try {
+            while ((message = reader.next()) != null) {
+                messageCount++;
+                if (Utility.isDebug()) {
+                    Utility.debug("Received message #" + messageCount + ": " + new String(message, StandardCharsets.UTF_8));
+                }
+
+                byte[] request = message;
+                int number = messageCount;
+                inFlight.acquireUninterruptibly();
+                executor.execute(() -> dispatch(request, number));
+            }
+        } finally {
+            // Let every accepted message get its response before returning
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+            executor.shutdown();
+            writer.close();
+        }
+
+        Utility.debug("McpStdioServer finished processing " + messageCount + " messages");
+    }
+
+    /**
+     * Handle one message and write its response once it completes.
+     */
+    private void dispatch(byte[] message, int number) {
+        CompletableFuture<byte[]> response;
+        try {
+            response = mcpServer.handleRequestBytes(message, 0, message.length, SESSION_ID, this::write);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
 
+        response.whenComplete((bytes, error) -> {
             try {
-                // Handle the JSON-RPC request using StreamableServer
-                // Use a fixed session ID for stdio (single session)
-                String sessionId = "stdio-session";
-                String response = mcpServer.handleRequestSync(line, sessionId);
-
-                if (response != null) {
-                    // Write the response to stdout
-                    writer.println(response);
-                    writer.flush();
-                    Utility.debug("Sent response #" + messageCount + ": " + response);
+                if (error != null) {
+                    Utility.debug("Error processing message #" + number + ": " + error.getMessage());
+                    // Send a generic error response
+                    write(INTERNAL_ERROR);
+                } else if (bytes != null) {
+                    write(bytes);
+                    Utility.debug("Sent response #" + number);
                 } else {
                     // Null response means this was a notification, no response needed
                     Utility.debug("Notification processed, no response sent");
                 }
-
-            } catch (Exception e) {
-                Utility.debug("Error processing message #" + messageCount + ": " + e.getMessage());
-
-                // Send a generic error response
-                String errorResponse = "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32000,\"message\":\"Internal server error\"},\"id\":null}";
-                writer.println(errorResponse);
-                writer.flush();
-                Utility.debug("Sent error response: " + errorResponse);
+            } finally {
+                inFlight.release();
             }
-        }
+        });
+    }
 
-        Utility.debug("McpStdioServer finished processing " + messageCount + " messages");
+    /**
+     * Answer input that frames no message, as JSON-RPC does a message that is not JSON.
+     */
+    private void writeParseError(String reason) {
+        ObjectNode error = JsonNodeFactory.instance.objectNode();
+        error.put("jsonrpc", "2.0");
+        error.putObject("error").put("code", PARSE_ERROR).put("message", "Parse error: " + reason);
+        error.putNull("id");
+        write(error.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queue one message. Responses and notifications of concurrent calls
+     * go through the single writer, so each line is written whole.
+     */
+    private void write(byte[] message) {
+        writer.write(message);
     }
 
     /**
@@ -0,0 +1,125 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpLoggableSession;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+/**
+ * Session handed to tools through their McpAsyncServerExchange.
+ *
+ * Server-to-client notifications (notifications/progress, logging) are
+ * serialized to JSON-RPC bytes and passed to the transport's sink as soon as
+ * the tool emits them, so an SSE response can stream them ahead of the
+ * final result. Transports that cannot stream pass no sink and the
+ * notifications are dropped.
+ *
+ * Server-to-client requests (sampling, elicitation, roots, ping) are not
+ * supported: the exchange is built with CAPABILITIES, which declares none
+ * of them, so a tool can check getClientCapabilities() before asking, and
+ * a request that is sent anyway fails with METHOD_NOT_FOUND.
+ */
+final class NotificationSession implements McpLoggableSession {
+
+    /**
+     * What a tool's exchange reports the client can do over this session.
+     */
+    static final McpSchema.ClientCapabilities CAPABILITIES = McpSchema.ClientCapabilities.builder().build();
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<byte[]> sink;
+    private volatile McpSchema.LoggingLevel minLoggingLevel = McpSchema.LoggingLevel.INFO;
+
+    NotificationSession(ObjectMapper objectMapper, Consumer<byte[]> sink) {
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+    }
+
+    @Override
+    public Mono<Void> sendNotification(String method, Object params) {
+        if (sink == null) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> {
+            try {
+                sink.accept(serialize(method, params));
+            } catch (IOException e) {
+                debug("!!! Failed to serialize notification", method, ":", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public <T> Mono<T> sendRequest(String method, Object requestParams, TypeRef<T> typeRef) {
+        return Mono.error(McpError.builder(McpSchema.ErrorCodes.METHOD_NOT_FOUND)
+                .message("Server-to-client request " + method + " is not supported by this transport")
+                .build());
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return Mono.empty();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void setMinLoggingLevel(McpSchema.LoggingLevel minLoggingLevel) {
+        this.minLoggingLevel = minLoggingLevel;
+    }
+
+    @Override
+    public boolean isNotificationForLevelAllowed(McpSchema.LoggingLevel loggingLevel) {
+        return loggingLevel.level() >= minLoggingLevel.level();
+    }
+
+    private byte[] serialize(String method, Object params) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("jsonrpc", "2.0");
+            gen.writeStringField("method", method);
+            if (params instanceof McpSchema.ProgressNotification progress) {
+                gen.writeFieldName("params");
+                writeProgress(gen, progress);
+            } else if (params != null) {
+                gen.writeFieldName("params");
+                objectMapper.writeValue(gen, params);
+            }
+            gen.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private void writeProgress(JsonGenerator gen, McpSchema.ProgressNotification progress) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("progressToken");
+        objectMapper.writeValue(gen, progress.progressToken());
+        if (progress.progress() != null) {
+            gen.writeNumberField("progress", progress.progress());
+        }
+        if (progress.total() != null) {
+            gen.writeNumberField("total", progress.total());
+        }
+        if (progress.message() != null) {
+            gen.writeStringField("message", progress.message());
+        }
+        if (progress.meta() != null && !progress.meta().isEmpty()) {
+            gen.writeFieldName("_meta");
+            objectMapper.writeValue(gen, progress.meta());
+        }
+        gen.writeEndObject();
+    }
+}
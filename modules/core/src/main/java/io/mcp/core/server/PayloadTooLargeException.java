@@ -0,0 +1,15 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+
+/**
+ * A request body is larger than HTTP_MAX_BODY_BYTES. Answered with 413.
+ */
+final class PayloadTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    PayloadTooLargeException(long maxBytes) {
+        super("Request body exceeds " + maxBytes + " bytes");
+    }
+}
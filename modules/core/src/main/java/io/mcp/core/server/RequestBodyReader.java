@@ -0,0 +1,135 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.mcp.core.utility.ConfigUtility;
+
+/**
+ * Reads request bodies into pooled, size-capped buffers.
+ *
+ * Bodies that fit HTTP_BODY_BUFFER_BYTES (default 64 KiB) are read into a
+ * buffer borrowed from a shared pool of HTTP_BODY_POOL_SIZE buffers, so the
+ * common small JSON-RPC request allocates nothing. Larger bodies get a
+ * one-off array: sized from Content-Length when it is present, grown as
+ * needed otherwise. Nothing larger than HTTP_MAX_BODY_BYTES (default 4 MiB)
+ * is read; a declared length over the cap is refused before reading.
+ */
+final class RequestBodyReader {
+
+    private final long maxBodyBytes;
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> pool;
+
+    RequestBodyReader() {
+        this.maxBodyBytes = Math.max(1, ConfigUtility.getInt("HTTP_MAX_BODY_BYTES", 4 * 1024 * 1024));
+        this.bufferSize = Math.max(1024, ConfigUtility.getInt("HTTP_BODY_BUFFER_BYTES", 64 * 1024));
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, ConfigUtility.getInt("HTTP_BODY_POOL_SIZE", 64)));
+    }
+
+    /**
+     * Read the whole request body. The caller closes the returned body once
+     * the bytes are decoded, which returns a pooled buffer to the pool.
+     *
+     * @throws PayloadTooLargeException if the body is larger than the cap
+     */
+    Body read(HttpExchange exchange) throws IOException {
+        long declared = contentLength(exchange);
+        if (declared > maxBodyBytes) {
+            throw new PayloadTooLargeException(maxBodyBytes);
+        }
+
+        InputStream in = exchange.getRequestBody();
+        if (declared >= 0) {
+            int length = (int) declared;
+            byte[] buffer = length <= bufferSize ? borrow() : new byte[length];
+            int read = in.readNBytes(buffer, 0, length);
+            if (read < length) {
+                release(buffer);
+                throw new IOException("Request body truncated: " + read + " of " + length + " bytes");
+            }
+            return new Body(buffer, length);
+        }
+
+        // Unknown length (chunked): fill a pooled buffer, grow past it up to the cap
+        byte[] buffer = borrow();
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                // One byte past the cap is enough to detect an oversized body
+                byte[] grown = Arrays.copyOf(buffer, (int) Math.min(maxBodyBytes + 1, (long) buffer.length * 2));
+                release(buffer);
+                buffer = grown;
+            }
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+            if (length > maxBodyBytes) {
+                release(buffer);
+                throw new PayloadTooLargeException(maxBodyBytes);
+            }
+        }
+        return new Body(buffer, length);
+    }
+
+    private static long contentLength(HttpExchange exchange) {
+        String transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+        String value = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (value == null || transferEncoding != null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private byte[] borrow() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    private void release(byte[] buffer) {
+        if (buffer.length == bufferSize) {
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * A request body held in the first length bytes of buffer.
+     */
+    final class Body implements AutoCloseable {
+
+        private byte[] buffer;
+        private final int length;
+
+        private Body(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int length() {
+            return length;
+        }
+
+        @Override
+        public void close() {
+            if (buffer != null) {
+                release(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package io.mcp.core.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import io.mcp.core.utility.ConfigUtility;
+
+/**
+ * gzip/deflate response compression negotiated from Accept-Encoding.
+ *
+ * Whole JSON bodies are compressed once they reach HTTP_COMPRESS_MIN_BYTES
+ * (default 1024). SSE streams are wrapped in a sync-flushing compressor, so
+ * every flushed event reaches the client as soon as it is written.
+ * HTTP_COMPRESSION=false turns compression off.
+ *
+ * Static response tails, such as a module's serialized tools/list result,
+ * can be registered with {@link #cacheTail(byte[])}. They are deflated once;
+ * a body ending with one only has its prefix (the envelope and id) deflated
+ * per request, and the cached stream is appended after a sync flush.
+ */
+final class ResponseCompressor {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+
+    private final boolean enabled;
+    private final int minBytes;
+    private final int level;
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(16);
+    private final List<CachedTail> tails = new CopyOnWriteArrayList<>();
+
+    ResponseCompressor() {
+        this.enabled = !"false".equalsIgnoreCase(ConfigUtility.getString("HTTP_COMPRESSION", "true"));
+        this.minBytes = Math.max(0, ConfigUtility.getInt("HTTP_COMPRESS_MIN_BYTES", 1024));
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, ConfigUtility.getInt("HTTP_COMPRESS_LEVEL", 6)));
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Pick the encoding for a response, or null to send it as is.
+     *
+     * @param length body length, or -1 for a stream (no threshold applies)
+     */
+    String selectEncoding(HttpExchange exchange, long length) {
+        if (!enabled || (length >= 0 && length < minBytes)) {
+            return null;
+        }
+        return negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Choose gzip or deflate from an Accept-Encoding value, honoring q-values.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = q;
+                case "deflate" -> deflate = q;
+                case "*" -> any = q;
+                default -> { }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Register a static body tail to be deflated once and reused.
+     */
+    void cacheTail(byte[] tail) {
+        if (!enabled || tail.length < minBytes) {
+            return;
+        }
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(tail);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(tail.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            tails.add(new CachedTail(tail, out.toByteArray()));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compress a whole body with the given encoding.
+     */
+    byte[] compress(byte[] body, String encoding) {
+        boolean gzip = GZIP.equals(encoding);
+        CachedTail tail = findTail(body);
+        int prefixLength = tail != null ? body.length - tail.raw.length : body.length;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        out.writeBytes(gzip ? GZIP_HEADER : ZLIB_HEADER);
+        byte[] buffer = new byte[8192];
+        Deflater deflater = borrow();
+        try {
+            deflater.setInput(body, 0, prefixLength);
+            if (tail != null) {
+                // Byte-align the prefix without ending the stream, then splice the cached blocks
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                } while (n == buffer.length);
+                out.writeBytes(tail.deflated);
+            } else {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            }
+        } finally {
+            release(deflater);
+        }
+
+        Checksum checksum = gzip ? new CRC32() : new Adler32();
+        checksum.update(body, 0, body.length);
+        int value = (int) checksum.getValue();
+        if (gzip) {
+            writeIntLE(out, value);
+            writeIntLE(out, body.length);
+        } else {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Wrap a response stream. Each flush emits everything written so far.
+     */
+    static OutputStream wrap(OutputStream os, String encoding) throws IOException {
+        return GZIP.equals(encoding) ? new GZIPOutputStream(os, 8192, true) : new DeflaterOutputStream(os, true);
+    }
+
+    private CachedTail findTail(byte[] body) {
+        for (CachedTail tail : tails) {
+            int length = tail.raw.length;
+            if (length <= body.length && Arrays.equals(body, body.length - length, body.length, tail.raw, 0, length)) {
+                return tail;
+            }
+        }
+        return null;
+    }
+
+    private Deflater borrow() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private record CachedTail(byte[] raw, byte[] deflated) {
+    }
+}
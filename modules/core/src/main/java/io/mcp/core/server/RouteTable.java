@@ -0,0 +1,196 @@
+package io.mcp.core.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Path router: a trie of path segments, e.g. prefix / module / transport.
+ *
+ * A request is routed to the handler of the deepest node its path reaches,
+ * so "/random" also serves "/random/mcp". Lookups hash each segment in place
+ * and compare it with regionMatches: no substring, array or iterator is
+ * allocated per request, and the cost depends on the path depth, not on the
+ * number of routes. The trie is immutable; {@link #add} and {@link #remove}
+ * publish a copy, so routes can change while requests are being served.
+ */
+final class RouteTable {
+
+    private volatile Node root = new Node("", null, null);
+
+    /**
+     * Route a path (and everything below it) to a handler, replacing any
+     * handler already registered for it.
+     */
+    synchronized void add(String path, HttpHandler handler) {
+        root = root.with(segments(path), 0, handler);
+    }
+
+    /**
+     * Remove the handler of a path. Handlers registered below it stay.
+     */
+    synchronized void remove(String path) {
+        Node updated = root.with(segments(path), 0, null);
+        root = updated != null ? updated : new Node("", null, null);
+    }
+
+    /**
+     * Handler for a raw request path, or null if no route matches.
+     */
+    HttpHandler match(String path) {
+        Node node = root;
+        HttpHandler best = node.handler;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.child(path, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.handler != null) {
+                best = node.handler;
+            }
+            start = end;
+        }
+        return best;
+    }
+
+    /**
+     * Value of a query parameter, scanning the raw query in place. Null if absent.
+     */
+    static String queryParam(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        int length = query.length();
+        int start = 0;
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int nameEnd = start + name.length();
+            if (nameEnd < end && query.charAt(nameEnd) == '=' && query.regionMatches(start, name, 0, name.length())) {
+                return query.substring(nameEnd + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static String[] segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * Same value as String.hashCode of the region.
+     */
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    private static final class Node {
+
+        final String segment;
+        final int hash;
+        final HttpHandler handler;
+        // Open-addressed by segment hash, at most half full
+        final Node[] children;
+
+        Node(String segment, HttpHandler handler, Node[] children) {
+            this.segment = segment;
+            this.hash = segment.hashCode();
+            this.handler = handler;
+            this.children = children;
+        }
+
+        Node child(String path, int start, int end) {
+            Node[] table = children;
+            if (table == null) {
+                return null;
+            }
+            int h = hash(path, start, end);
+            int mask = table.length - 1;
+            for (int i = (h ^ (h >>> 16)) & mask; ; i = (i + 1) & mask) {
+                Node child = table[i];
+                if (child == null) {
+                    return null;
+                }
+                if (child.hash == h && child.segment.length() == end - start
+                        && path.regionMatches(start, child.segment, 0, end - start)) {
+                    return child;
+                }
+            }
+        }
+
+        /**
+         * Copy of this node with the handler at segments[depth..] set (or
+         * cleared when null). Returns null if the node ends up empty.
+         */
+        Node with(String[] segments, int depth, HttpHandler newHandler) {
+            if (depth == segments.length) {
+                return newHandler == null && children == null ? null : new Node(segment, newHandler, children);
+            }
+            List<Node> updated = new ArrayList<>();
+            Node existing = null;
+            if (children != null) {
+                for (Node child : children) {
+                    if (child == null) {
+                        continue;
+                    }
+                    if (child.segment.equals(segments[depth])) {
+                        existing = child;
+                    } else {
+                        updated.add(child);
+                    }
+                }
+            }
+            Node replaced = existing != null
+                    ? existing.with(segments, depth + 1, newHandler)
+                    : new Node(segments[depth], null, null).with(segments, depth + 1, newHandler);
+            if (replaced != null) {
+                updated.add(replaced);
+            }
+            if (updated.isEmpty() && handler == null && depth > 0) {
+                return null;
+            }
+            return new Node(segment, handler, table(updated));
+        }
+
+        private static Node[] table(List<Node> nodes) {
+            if (nodes.isEmpty()) {
+                return null;
+            }
+            int size = Integer.highestOneBit(nodes.size() * 2 - 1) << 1;
+            Node[] table = new Node[Math.max(2, size)];
+            int mask = table.length - 1;
+            for (Node node : nodes) {
+                int i = (node.hash ^ (node.hash >>> 16)) & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = node;
+            }
+            return table;
+        }
+    }
+}
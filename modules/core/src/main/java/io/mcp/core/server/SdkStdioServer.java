@@ -10,7 +10,11 @@ import io.mcp.core.protocol.McpService;
 public class SdkStdioServer {
 
     public void start(McpService mcpService) throws IOException {
-        McpStdioServer stdioServer = new McpStdioServer();
+        start(mcpService, McpStdioServer.Framing.LINE);
+    }
+
+    public void start(McpService mcpService, McpStdioServer.Framing framing) throws IOException {
+        McpStdioServer stdioServer = new McpStdioServer(framing);
         stdioServer.initialize(mcpService);
         stdioServer.start();
     }
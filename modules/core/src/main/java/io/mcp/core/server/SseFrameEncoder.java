@@ -0,0 +1,80 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes serialized JSON-RPC messages as SSE "message" events.
+ *
+ * The payload is taken as UTF-8 bytes and split on newlines in place: each
+ * line segment is written straight from the source array, with a "data: "
+ * prefix in front of every continuation line. No intermediate String or
+ * replaced copy of the payload is made.
+ */
+final class SseFrameEncoder {
+
+    private static final byte[] ID_PREFIX = "id: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA_CONTINUATION = "\ndata: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private SseFrameEncoder() {
+    }
+
+    /**
+     * Write a message event to a stream, one write per payload line. The
+     * caller flushes and serializes concurrent writers.
+     */
+    static void writeMessage(OutputStream os, byte[] message) throws IOException {
+        os.write(MESSAGE_PREFIX);
+        int start = 0;
+        for (int i = 0; i < message.length; i++) {
+            if (message[i] == '\n') {
+                os.write(message, start, i - start);
+                os.write(DATA_CONTINUATION);
+                start = i + 1;
+            }
+        }
+        os.write(message, start, message.length - start);
+        os.write(EVENT_END);
+    }
+
+    /**
+     * Encode a message event with an id field into a single array of the
+     * exact frame size, for frames that are also kept for replay.
+     */
+    static byte[] encodeMessage(String id, byte[] message) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int newlines = 0;
+        for (byte b : message) {
+            if (b == '\n') {
+                newlines++;
+            }
+        }
+
+        byte[] frame = new byte[ID_PREFIX.length + idBytes.length + 1 + MESSAGE_PREFIX.length
+                + message.length + newlines * (DATA_CONTINUATION.length - 1) + EVENT_END.length];
+        int pos = put(frame, 0, ID_PREFIX, 0, ID_PREFIX.length);
+        pos = put(frame, pos, idBytes, 0, idBytes.length);
+        frame[pos++] = '\n';
+        pos = put(frame, pos, MESSAGE_PREFIX, 0, MESSAGE_PREFIX.length);
+        int start = 0;
+        for (int i = 0; i < message.length && newlines > 0; i++) {
+            if (message[i] == '\n') {
+                pos = put(frame, pos, message, start, i - start);
+                pos = put(frame, pos, DATA_CONTINUATION, 0, DATA_CONTINUATION.length);
+                start = i + 1;
+                newlines--;
+            }
+        }
+        pos = put(frame, pos, message, start, message.length - start);
+        put(frame, pos, EVENT_END, 0, EVENT_END.length);
+        return frame;
+    }
+
+    private static int put(byte[] frame, int pos, byte[] src, int off, int len) {
+        System.arraycopy(src, off, frame, pos, len);
+        return pos + len;
+    }
+}
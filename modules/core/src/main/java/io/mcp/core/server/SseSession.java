@@ -0,0 +1,217 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Legacy SSE session: one logical event stream that may span several connections.
+ *
+ * Every message is numbered and sent with an "id: {sessionId}:{seq}" field,
+ * and the most recent frames are kept in a bounded ring. When the connection
+ * drops the session stays detached instead of closing; a client that
+ * reconnects to /{module}/sse with Last-Event-ID within the grace period is
+ * re-attached and gets the frames it missed replayed in order.
+ */
+final class SseSession {
+
+    static final byte[] KEEPALIVE_FRAME = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String sessionId;
+    private final StreamableServer server;
+    private final Runnable onClose;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final AtomicBoolean keepAlivePending = new AtomicBoolean();
+
+    // Ring of the last frames sent, indexed by seq % capacity; guarded by this
+    private final byte[][] replayFrames;
+    private final long[] replaySeqs;
+    private long lastSeq;
+
+    // Current connection, null while detached; guarded by this
+    private HttpExchange exchange;
+    private OutputStream outputStream;
+    private long detachedAtNanos;
+
+    SseSession(String sessionId, StreamableServer server, int replayCapacity, Runnable onClose) {
+        this.sessionId = sessionId;
+        this.server = server;
+        this.onClose = onClose;
+        this.replayFrames = new byte[Math.max(1, replayCapacity)][];
+        this.replaySeqs = new long[replayFrames.length];
+        this.detachedAtNanos = System.nanoTime();
+    }
+
+    String getSessionId() {
+        return sessionId;
+    }
+
+    StreamableServer getServer() {
+        return server;
+    }
+
+    /**
+     * Session id part of a Last-Event-ID, or null if it is not one of ours.
+     */
+    static String sessionIdOf(String lastEventId) {
+        int separator = lastEventId != null ? lastEventId.lastIndexOf(':') : -1;
+        return separator > 0 ? lastEventId.substring(0, separator) : null;
+    }
+
+    /**
+     * Sequence part of a Last-Event-ID, or -1 if it is not one of ours.
+     */
+    static long sequenceOf(String lastEventId) {
+        int separator = lastEventId != null ? lastEventId.lastIndexOf(':') : -1;
+        if (separator < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Attach a connection writing to stream (the response body, possibly
+     * wrapped by a compressor), replacing any previous one, write the greeting
+     * frame and replay buffered frames numbered after replayAfterSeq (none
+     * when negative). Done under the session lock so live messages cannot
+     * interleave with the replay.
+     */
+    synchronized boolean attach(HttpExchange newExchange, OutputStream stream, byte[] greeting, long replayAfterSeq) {
+        if (!open.get()) {
+            newExchange.close();
+            return false;
+        }
+        closeConnection();
+        exchange = newExchange;
+        outputStream = stream;
+        detachedAtNanos = 0;
+
+        if (!writeFrame(greeting)) {
+            return false;
+        }
+        if (replayAfterSeq >= 0) {
+            long first = Math.max(replayAfterSeq + 1, lastSeq - replayFrames.length + 1);
+            if (first > replayAfterSeq + 1) {
+                debug("SSE replay buffer overrun for session", sessionId, "- events", replayAfterSeq + 1, "to", first - 1, "lost");
+            }
+            for (long seq = first; seq <= lastSeq; seq++) {
+                int slot = (int) (seq % replayFrames.length);
+                if (replaySeqs[slot] == seq && !writeFrame(replayFrames[slot])) {
+                    return false;
+                }
+            }
+            debug("Replayed", Math.max(0, lastSeq - first + 1), "SSE events to session", sessionId);
+        }
+        return true;
+    }
+
+    /**
+     * Send a serialized JSON-RPC message as a numbered event. It is kept for
+     * replay even if the session is currently detached.
+     */
+    synchronized void sendMessage(byte[] message) {
+        if (!open.get()) return;
+        long seq = ++lastSeq;
+        byte[] frame = SseFrameEncoder.encodeMessage(sessionId + ":" + seq, message);
+        int slot = (int) (seq % replayFrames.length);
+        replayFrames[slot] = frame;
+        replaySeqs[slot] = seq;
+
+        if (writeFrame(frame)) {
+            debug("Sent SSE message to session:", sessionId, "seq:", seq);
+        }
+    }
+
+    /**
+     * Write an unnumbered frame (endpoint, keepalive) to the current connection.
+     */
+    synchronized boolean write(byte[] frame) {
+        return open.get() && writeFrame(frame);
+    }
+
+    /**
+     * Claim the next keepalive. False if detached or the previous one is still being written.
+     */
+    boolean beginKeepAlive() {
+        return open.get() && isAttached() && keepAlivePending.compareAndSet(false, true);
+    }
+
+    void sendKeepAlive() {
+        try {
+            if (write(KEEPALIVE_FRAME)) {
+                // An open connection keeps its session from expiring
+                server.touchSession(sessionId);
+            }
+        } finally {
+            keepAlivePending.set(false);
+        }
+    }
+
+    synchronized boolean isAttached() {
+        return outputStream != null;
+    }
+
+    /**
+     * True once the session has been detached for longer than the grace period.
+     */
+    synchronized boolean isDetachedLongerThan(long graceNanos) {
+        return outputStream == null && System.nanoTime() - detachedAtNanos > graceNanos;
+    }
+
+    boolean isOpen() {
+        return open.get();
+    }
+
+    /**
+     * Close the session for good: drop the connection and the replay buffer.
+     */
+    void close() {
+        if (!open.compareAndSet(true, false)) return;
+        synchronized (this) {
+            closeConnection();
+            for (int i = 0; i < replayFrames.length; i++) {
+                replayFrames[i] = null;
+            }
+        }
+        onClose.run();
+        server.closeSession(sessionId);
+    }
+
+    private boolean writeFrame(byte[] frame) {
+        if (outputStream == null) {
+            return false;
+        }
+        try {
+            outputStream.write(frame);
+            outputStream.flush();
+            return true;
+        } catch (IOException e) {
+            // The client went away: keep the session for a resume
+            debug("SSE connection closed:", sessionId);
+            closeConnection();
+            return false;
+        }
+    }
+
+    private void closeConnection() {
+        if (outputStream == null) {
+            return;
+        }
+        try {
+            outputStream.close();
+        } catch (Exception ignored) {}
+        exchange.close();
+        outputStream = null;
+        exchange = null;
+        detachedAtNanos = System.nanoTime();
+    }
+}
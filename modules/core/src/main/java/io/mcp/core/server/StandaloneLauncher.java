@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.util.List;
 
 import io.mcp.core.protocol.McpService;
+import io.mcp.core.service.CombinedService;
+import io.mcp.core.utility.ConfigUtility;
 import io.mcp.core.utility.ServiceUtility;
 import io.mcp.core.utility.Utility;
 
@@ -15,6 +17,13 @@ public class StandaloneLauncher {
     Command line arguments:
     - transport: stdio, http, sse
     - classPath: the path to the service class
+
+    STDIO_FRAMING=content-length makes stdio frame messages with
+    Content-Length headers instead of one per line.
+
+    With several modules and no module argument (or "root"), stdio serves
+    all of them in this one process through a CombinedService; tool and
+    prompt names shared by modules are prefixed with {module}_.
     */
 
     public static void main(String[] args) throws Exception {
@@ -31,28 +40,35 @@ public class StandaloneLauncher {
 
         Utility.setDebug(true);
        
-        List<McpService> services = ServiceUtility.getRegisteredServices();
+        // Module names only: services are instantiated by whichever transport serves them
+        List<String> modules = ServiceUtility.getRegisteredModules();
 
-        Utility.debug("Services founded: " + services.size());
-        for(McpService service : services) {
-            Utility.debug("Service: " + service.getModule() + " - " + service.getClass().getName());
+        Utility.debug("Services founded: " + modules.size());
+        for(String module : modules) {
+            Utility.debug("Service: " + module);
         }
 
 
-        if(services.size() == 1) {
-            launch(transport, services.get(0));
+        if(modules.size() == 1) {
+            // The HTTP transports look their modules up themselves
+            launch(transport, "stdio".equals(transport) ? ServiceUtility.getService(modules.get(0)) : null);
+            return;
+        }else if(CombinedService.MODULE.equals(moduleName) && "stdio".equals(transport)) {
+            launch(transport, new CombinedService(ServiceUtility.getRegisteredServices()));
             return;
         }else if(moduleName != null){ 
             Utility.debug("Launching module: " + moduleName);
-            for (McpService service : services) {
-                if(service.getModule().equals(moduleName)) {
-                    launch(transport, service);
-                    return;
-                }
+            McpService service = ServiceUtility.getService(moduleName);
+            if(service != null) {
+                launch(transport, service);
+                return;
             }
-        }else if(services.size() > 1) {
+        }else if(modules.size() > 1) {
             if("stdio".equals(transport)) {
-                throw new IllegalArgumentException("stdio transport is not supported for multiple modules");
+                // One process serves every module over the pipe
+                Utility.debug("Combining " + modules.size() + " modules for stdio");
+                launch(transport, new CombinedService(ServiceUtility.getRegisteredServices()));
+                return;
             }
             launch(transport, null);
         }
@@ -72,16 +88,17 @@ public class StandaloneLauncher {
 
         if (transport.equals("stdio")) {
 
+            McpStdioServer.Framing framing = McpStdioServer.Framing.from(ConfigUtility.getString("STDIO_FRAMING", "line"));
             if (Utility.isNative()) {
                 // Use the new native-image compatible stdio server
-                McpStdioServer stdioServer = new McpStdioServer();
+                McpStdioServer stdioServer = new McpStdioServer(framing);
                 stdioServer.initialize(service);
                 stdioServer.start();
             } else {
 
                 //Use the official SDK STDIO server
                 SdkStdioServer stdioServer = new SdkStdioServer();
-                stdioServer.start(service);
+                stdioServer.start(service, framing);
             }
 
         } else if (transport.equals("http")) {
@@ -0,0 +1,127 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single writer of stdio output: one message per line, or each preceded by a
+ * Content-Length header with {@link McpStdioServer.Framing#CONTENT_LENGTH}.
+ *
+ * Callers only enqueue; a dedicated thread drains everything that is ready,
+ * packs it into one direct buffer and hands it to the channel, so a burst
+ * of responses costs one write call instead of one flush per message.
+ * Messages are written in the order they were enqueued.
+ */
+final class StdioBatchWriter implements AutoCloseable {
+
+    // Sentinel that ends the writer thread once everything before it is written
+    private static final byte[] END = new byte[0];
+
+    private final WritableByteChannel channel;
+    private final boolean contentLength;
+    private final ByteBuffer buffer;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean failed;
+
+    StdioBatchWriter(WritableByteChannel channel, int bufferSize, McpStdioServer.Framing framing) {
+        this.channel = channel;
+        this.contentLength = framing == McpStdioServer.Framing.CONTENT_LENGTH;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1024, bufferSize));
+        this.thread = Thread.ofVirtual().name("mcp-stdio-writer").start(this::run);
+    }
+
+    /**
+     * Queue a message; its framing is added on write.
+     */
+    void write(byte[] message) {
+        if (!failed) {
+            queue.add(message);
+        }
+    }
+
+    /**
+     * Write what is queued, then stop.
+     */
+    @Override
+    public void close() {
+        queue.add(END);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean end = false;
+                for (byte[] message : batch) {
+                    if (message == END) {
+                        end = true;
+                        break;
+                    }
+                    put(message);
+                }
+                batch.clear();
+                drain();
+                if (end) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+            queue.clear();
+            debug("Failed to write stdio output:", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(byte[] message) throws IOException {
+        byte[] header = contentLength
+                ? ("Content-Length: " + message.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII)
+                : null;
+        int framed = contentLength ? header.length + message.length : message.length + 1;
+        if (framed > buffer.remaining()) {
+            drain();
+        }
+        if (contentLength) {
+            buffer.put(header);
+        }
+        if (framed > buffer.capacity()) {
+            // Larger than the buffer: write it as is
+            drain();
+            writeFully(ByteBuffer.wrap(message));
+        } else {
+            buffer.put(message);
+        }
+        if (!contentLength) {
+            buffer.put((byte) '\n');
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits JSON-RPC messages straight out of a byte channel.
+ *
+ * Input is read in large chunks into one reusable buffer and scanned for
+ * newlines in place; each message is copied out once as UTF-8 bytes, ready
+ * for the JSON decoder. No Reader, char decoding or String is involved. The
+ * buffer grows to hold a message longer than itself.
+ *
+ * With {@link McpStdioServer.Framing#CONTENT_LENGTH} each message is preceded
+ * by LSP-style headers instead. The declared length sizes the message array
+ * up front and the body is read into it directly, so a large message is
+ * neither scanned for a newline nor copied through the buffer as it grows.
+ * A message declared longer than maxMessageBytes is skipped. A missing,
+ * negative or unparsable length, or a header line too long to be one, is
+ * reported to framingErrors; the input is then skipped up to the next
+ * Content-Length header, even one that follows the bad body on its line.
+ */
+final class StdioFrameReader {
+
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final String CONTENT_LENGTH = "content-length";
+    // Bytes kept of an overlong line while resyncing: a header split across reads
+    private static final int RESYNC_TAIL = CONTENT_LENGTH.length();
+
+    private final ReadableByteChannel channel;
+    private final McpStdioServer.Framing framing;
+    private final int maxMessageBytes;
+    private final Consumer<String> framingErrors;
+    private byte[] buffer;
+    // Unconsumed input is buffer[start, end); scan is where the newline search resumes
+    private int start;
+    private int scan;
+    private int end;
+    private boolean eof;
+    // After a malformed header: looking for the next Content-Length header
+    private boolean resyncing;
+
+    StdioFrameReader(ReadableByteChannel channel, int bufferSize, McpStdioServer.Framing framing, int maxMessageBytes,
+            Consumer<String> framingErrors) {
+        this.channel = channel;
+        this.buffer = new byte[Math.max(1024, bufferSize)];
+        this.framing = framing;
+        this.maxMessageBytes = maxMessageBytes;
+        this.framingErrors = framingErrors;
+    }
+
+    /**
+     * Next message without its framing, or null at end of input.
+     */
+    byte[] next() throws IOException {
+        return framing == McpStdioServer.Framing.CONTENT_LENGTH ? nextContent() : nextLine();
+    }
+
+    /**
+     * Next newline-delimited message. Blank lines are skipped.
+     */
+    private byte[] nextLine() throws IOException {
+        while (true) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    byte[] message = frame(start, i);
+                    start = i + 1;
+                    scan = start;
+                    if (message != null) {
+                        return message;
+                    }
+                }
+            }
+            scan = end;
+
+            if (eof) {
+                // A last message may come without a trailing newline
+                byte[] message = start < end ? frame(start, end) : null;
+                start = end;
+                return message;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Next message framed by a Content-Length header. Other headers are ignored.
+     */
+    private byte[] nextContent() throws IOException {
+        while (true) {
+            int length = -1;
+            String invalid = null;
+            String line;
+            while ((line = headerLine()) != null) {
+                if (line.isEmpty()) {
+                    if (length >= 0 || invalid != null) {
+                        break;
+                    }
+                    // Stray separator before any header
+                    continue;
+                }
+                int header = contentLengthHeader(line);
+                if (header < 0) {
+                    // Another header, or the rest of a skipped body
+                    continue;
+                }
+                resyncing = false;
+                String value = line.substring(line.indexOf(':', header) + 1).trim();
+                try {
+                    length = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    length = -1;
+                }
+                if (length < 0) {
+                    invalid = line.substring(header);
+                }
+            }
+            if (line == null) {
+                return null;
+            }
+            if (invalid != null) {
+                malformed("Invalid header: " + invalid);
+                continue;
+            }
+
+            if (length > maxMessageBytes) {
+                debug("!!! Skipping stdio message of", length, "bytes, over the limit of", maxMessageBytes);
+                skip(length);
+                continue;
+            }
+            if (length == 0) {
+                continue;
+            }
+
+            byte[] message = new byte[length];
+            int buffered = Math.min(length, end - start);
+            System.arraycopy(buffer, start, message, 0, buffered);
+            start += buffered;
+            scan = start;
+            ByteBuffer rest = ByteBuffer.wrap(message, buffered, length - buffered);
+            while (rest.hasRemaining()) {
+                if (channel.read(rest) < 0) {
+                    throw new EOFException("Input ended inside a " + length + " byte message");
+                }
+            }
+            return message;
+        }
+    }
+
+    /**
+     * Next header line, trimmed; null at end of input.
+     */
+    private String headerLine() throws IOException {
+        while (true) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    String line = new String(buffer, start, i - start, StandardCharsets.US_ASCII).trim();
+                    start = i + 1;
+                    scan = start;
+                    return line;
+                }
+            }
+            scan = end;
+            if (eof) {
+                start = end;
+                return null;
+            }
+            if (end - start > MAX_HEADER_BYTES) {
+                if (!resyncing) {
+                    malformed("Header line over " + MAX_HEADER_BYTES + " bytes");
+                }
+                // Drop the line, keeping what may be the start of the next header
+                start = end - RESYNC_TAIL;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Where a Content-Length header starts in a header line, or -1. While
+     * resyncing it may follow the rest of a skipped body on the same line.
+     */
+    private int contentLengthHeader(String line) {
+        if (resyncing) {
+            int header = line.toLowerCase(Locale.ROOT).lastIndexOf(CONTENT_LENGTH);
+            return header >= 0 && line.indexOf(':', header) >= 0 ? header : -1;
+        }
+        int colon = line.indexOf(':');
+        return colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(CONTENT_LENGTH) ? 0 : -1;
+    }
+
+    /**
+     * Report a header block that frames no message, and skip to the next one.
+     */
+    private void malformed(String reason) {
+        debug("!!! Malformed stdio frame:", reason, "- skipping to the next Content-Length header");
+        resyncing = true;
+        framingErrors.accept(reason);
+    }
+
+    /**
+     * Discard the next count bytes of input.
+     */
+    private void skip(long count) throws IOException {
+        while (count > 0) {
+            int buffered = (int) Math.min(count, end - start);
+            start += buffered;
+            scan = start;
+            count -= buffered;
+            if (count > 0) {
+                if (eof) {
+                    throw new EOFException("Input ended inside a skipped message");
+                }
+                fill();
+            }
+        }
+    }
+
+    /**
+     * Read more input after the unconsumed bytes, compacting or growing the buffer first.
+     */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            scan -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+
+    /**
+     * Copy of buffer[from, to) with surrounding whitespace (and the CR of a CRLF) removed, or null if blank.
+     */
+    private byte[] frame(int from, int to) {
+        while (from < to && isWhitespace(buffer[from])) {
+            from++;
+        }
+        while (to > from && isWhitespace(buffer[to - 1])) {
+            to--;
+        }
+        return from < to ? Arrays.copyOfRange(buffer, from, to) : null;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
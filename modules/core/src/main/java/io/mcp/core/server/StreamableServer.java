@@ -5,19 +5,34 @@ import static io.mcp.core.utility.Utility.debug;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 
+import io.mcp.core.manager.SessionLimitException;
+import io.mcp.core.manager.SessionManager;
 import io.mcp.core.protocol.McpService;
-import io.mcp.core.protocol.McpTool;
+import io.mcp.core.protocol.ToolCallContext;
+import io.mcp.core.utility.ConfigUtility;
+import io.mcp.core.utility.Utility;
+import io.modelcontextprotocol.common.McpTransportContext;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -36,27 +51,48 @@ import io.modelcontextprotocol.spec.McpSchema.CallToolRequest;
  * server.initialize(mcpService);
  *
  * // In your HTTP handler (Servlet, Lambda, etc.):
- * String response = server.handleRequest(requestBody, sessionId).join();
+ * byte[] response = server.handleRequestBytes(requestBody, sessionId).join();
  * </pre>
  */
 public class StreamableServer {
 
+    private static final String SERIALIZATION_ERROR =
+            "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Serialization error\"}}";
+
+    private static final char CALL_KEY_SEPARATOR = '\u0000';
+
+    // Batch elements fan out on virtual threads
+    private static final ExecutorService BATCH_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // JSON-RPC server error returned when a tool call exceeds its timeout
+    private static final int REQUEST_TIMEOUT = -32001;
+
     private final ObjectMapper objectMapper;
+    private final JsonRpcDecoder decoder;
+    private final long defaultToolTimeoutMs;
     private McpService mcpService;
-    private Map<String, McpServerFeatures.AsyncToolSpecification> toolMap;
-    private Map<String, McpServerFeatures.AsyncPromptSpecification> promptMap;
-    private Map<String, McpServerFeatures.AsyncResourceSpecification> resourceMap;
-    private Map<String, McpServerFeatures.AsyncResourceTemplateSpecification> templateMap;
+    private volatile CapabilityCatalog catalog;
+
+    // Session management for stateful connections, bounded and idle-expired
+    private final SessionManager<SessionState> sessions;
 
-    // Session management for stateful connections
-    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // Running tool calls keyed by session and request id, for notifications/cancelled
+    private final Map<String, ToolCallContext> inFlightCalls = new ConcurrentHashMap<>();
 
     public StreamableServer() {
-        this.objectMapper = new ObjectMapper();
+        this(new ObjectMapper());
     }
 
     public StreamableServer(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.decoder = new JsonRpcDecoder(objectMapper);
+        this.defaultToolTimeoutMs = Math.max(0, ConfigUtility.getInt("TOOL_TIMEOUT_MS", 60000));
+        this.sessions = new SessionManager<>("streamable",
+                Math.max(1, ConfigUtility.getInt("SESSION_MAX_COUNT", 10000)),
+                Math.max(1, ConfigUtility.getInt("SESSION_IDLE_TTL_MS", 30 * 60 * 1000)),
+                SessionState::new,
+                this::onSessionRemoved,
+                SessionState::hasCallsInFlight);
     }
 
     /**
@@ -66,33 +102,16 @@ public class StreamableServer {
     public void initialize(McpService mcpService) {
         debug("StreamableServer.initialize() - Starting initialization");
         this.mcpService = mcpService;
-        this.toolMap = new HashMap<>();
-        this.promptMap = new HashMap<>();
-        this.resourceMap = new HashMap<>();
-        this.templateMap = new HashMap<>();
-
-        for (McpTool tool : mcpService.getTools()) {
-            var spec = tool.getToolSpecification();
-            toolMap.put(spec.tool().name(), spec);
-            debug("  Registered tool:", spec.tool().name());
-        }
+        this.catalog = CapabilityCatalog.build(mcpService, objectMapper);
 
-        for (McpServerFeatures.AsyncPromptSpecification spec : mcpService.getPromptSpecifications()) {
-            promptMap.put(spec.prompt().name(), spec);
-            debug("  Registered prompt:", spec.prompt().name());
-        }
-
-        for (McpServerFeatures.AsyncResourceSpecification spec : mcpService.getResourceSpecifications()) {
-            resourceMap.put(spec.resource().uri(), spec);
-            debug("  Registered resource:", spec.resource().uri());
-        }
-
-        for (McpServerFeatures.AsyncResourceTemplateSpecification spec : mcpService.getResourceTemplateSpecifications()) {
-            templateMap.put(spec.resourceTemplate().name(), spec);
-            debug("  Registered template:", spec.resourceTemplate().name());
-        }
+        debug("StreamableServer.initialize() - Completed with", catalog.getTools().size(), "tools,", catalog.getPrompts().size(), "prompts,", catalog.getResources().size(), "resources, and", catalog.getTemplates().size(), "templates");
+    }
 
-        debug("StreamableServer.initialize() - Completed with", toolMap.size(), "tools,", promptMap.size(), "prompts,", resourceMap.size(), "resources, and", templateMap.size(), "templates");
+    /**
+     * Get the capability catalog built during {@link #initialize(McpService)}.
+     */
+    public CapabilityCatalog getCatalog() {
+        return catalog;
     }
 
     /**
@@ -105,29 +124,60 @@ public class StreamableServer {
     public CompletableFuture<String> handleRequest(String requestBody, String sessionId) {
         debug(">>> handleRequest - sessionId:", sessionId);
         debug(">>> Request body:", requestBody);
+        JsonRpcDecoder.Message message;
         try {
-            JsonNode request = objectMapper.readTree(requestBody);
-            return processJsonRpcRequest(request, sessionId)
-                    .thenApply(response -> {
-                        // Notifications return null - no response should be sent
-                        if (response == null) {
-                            debug("<<< Response: (none - notification)");
-                            return null;
-                        }
-                        try {
-                            String responseStr = objectMapper.writeValueAsString(response);
-                            debug("<<< Response:", responseStr);
-                            return responseStr;
-                        } catch (Exception e) {
-                            debug("!!! Serialization error:", e.getMessage());
-                            return createErrorResponse(null, -32603, "Serialization error: " + e.getMessage());
-                        }
-                    });
+            message = decoder.decode(requestBody);
         } catch (Exception e) {
-            debug("!!! Parse error:", e.getMessage());
-            return CompletableFuture.completedFuture(
-                    createErrorResponse(null, -32700, "Parse error: " + e.getMessage()));
+            return CompletableFuture.completedFuture(toJsonString(decodeError(e)));
+        }
+
+        return processMessage(message, sessionId, null).thenApply(this::toJsonString);
+    }
+
+    /**
+     * Handle a JSON-RPC message given as UTF-8 bytes and serialize the response
+     * straight to bytes, without intermediate trees or Strings.
+     *
+     * This is the entry point transports should prefer.
+     *
+     * @param requestBody The raw JSON-RPC request body
+     * @param sessionId Optional session ID for stateful connections (can be null)
+     * @return CompletableFuture with the UTF-8 JSON-RPC response, null for notifications
+     */
+    public CompletableFuture<byte[]> handleRequestBytes(byte[] requestBody, String sessionId) {
+        return handleRequestBytes(requestBody, 0, requestBody.length, sessionId);
+    }
+
+    /**
+     * Handle a JSON-RPC message held in a byte range of a (possibly pooled) buffer.
+     * The range is fully decoded before this method returns, so the caller may
+     * reuse the buffer as soon as it gets the future back.
+     */
+    public CompletableFuture<byte[]> handleRequestBytes(byte[] buffer, int offset, int length, String sessionId) {
+        return handleRequestBytes(buffer, offset, length, sessionId, null);
+    }
+
+    /**
+     * Handle a JSON-RPC message and stream the notifications tools emit while
+     * it runs (notifications/progress and partial results).
+     *
+     * @param notificationSink receives each notification as UTF-8 JSON-RPC bytes,
+     *        in emission order and before the future completes; null drops them
+     */
+    public CompletableFuture<byte[]> handleRequestBytes(byte[] buffer, int offset, int length, String sessionId,
+            Consumer<byte[]> notificationSink) {
+        debug(">>> handleRequestBytes - sessionId:", sessionId, "bytes:", length);
+        if (sessionId != null) {
+            sessions.touch(sessionId);
         }
+        JsonRpcDecoder.Message message;
+        try {
+            message = decoder.decode(buffer, offset, length);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toJsonBytes(decodeError(e)));
+        }
+
+        return processMessage(message, sessionId, notificationSink).thenApply(this::toJsonBytes);
     }
 
     /**
@@ -169,7 +219,7 @@ public class StreamableServer {
      * @return Runnable to close the stream
      */
     public Runnable createSseStream(String sessionId, Consumer<String> eventConsumer) {
-        SessionState session = sessions.computeIfAbsent(sessionId, k -> new SessionState());
+        SessionState session = sessions.getOrCreate(sessionId);
         session.sseConsumer = eventConsumer;
 
         return () -> {
@@ -180,18 +230,85 @@ public class StreamableServer {
         };
     }
 
+    /**
+     * Register a session, or mark an existing one used.
+     *
+     * @param sessionId a session id this server minted, null to mint a new one
+     * @return the session id
+     * @throws SessionLimitException if the session is new and every session is in use
+     */
+    public String openSession(String sessionId) {
+        String id = sessionId != null ? sessionId : UUID.randomUUID().toString();
+        sessions.getOrCreate(id);
+        return id;
+    }
+
+    /**
+     * Check whether a session is live.
+     */
+    public boolean hasSession(String sessionId) {
+        return sessionId != null && sessions.contains(sessionId);
+    }
+
+    /**
+     * Mark a session used so it does not expire. Returns false if it is not live.
+     */
+    public boolean touchSession(String sessionId) {
+        return sessionId != null && sessions.touch(sessionId);
+    }
+
+    /**
+     * Live session counters for status reporting.
+     */
+    public Map<String, Object> getSessionMetrics() {
+        return sessions.getMetrics();
+    }
+
     /**
      * Close a session and clean up resources.
+     *
+     * @return true if the session was live
      */
-    public void closeSession(String sessionId) {
-        sessions.remove(sessionId);
+    public boolean closeSession(String sessionId) {
+        if (sessions.remove(sessionId)) {
+            return true;
+        }
+        // Not registered (or already expired): still drop any calls it left running
+        cancelSessionCalls(sessionId);
+        return false;
+    }
+
+    private void onSessionRemoved(String sessionId, SessionState session) {
+        session.sseConsumer = null;
+        cancelSessionCalls(sessionId);
+    }
+
+    private void cancelSessionCalls(String sessionId) {
+        String prefix = sessionId + CALL_KEY_SEPARATOR;
+        inFlightCalls.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().cancel(ToolCallContext.CancelReason.SESSION_CLOSED);
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
      * Shutdown the server and release all resources.
      */
     public void shutdown() {
-        sessions.clear();
+        // Before the sessions close, so the calls report the shutdown
+        inFlightCalls.values().forEach(context -> context.cancel(ToolCallContext.CancelReason.SHUTDOWN));
+        inFlightCalls.clear();
+        sessions.close();
+    }
+
+    /**
+     * Number of tool calls currently running.
+     */
+    public int getInFlightCallCount() {
+        return inFlightCalls.size();
     }
 
     /**
@@ -201,14 +318,70 @@ public class StreamableServer {
         return "application/json";
     }
 
+    /**
+     * Process a decoded message. Completes with a single JsonRpcResponse, a
+     * List of them for a batch, or null when nothing should be sent back.
+     */
+    private CompletableFuture<Object> processMessage(JsonRpcDecoder.Message message, String sessionId,
+            Consumer<byte[]> notificationSink) {
+        if (!message.batch()) {
+            // As for batch elements, a failure is still answered to the request's id
+            JsonRpcRequest request = message.requests().get(0);
+            return processJsonRpcRequest(request, sessionId, notificationSink)
+                    .exceptionally(e -> request.isNotification() ? null
+                            : JsonRpcResponse.error(request.id(), -32603, "Internal error: " + e.getMessage()))
+                    .thenApply(response -> response);
+        }
+        return processBatch(message.requests(), sessionId, notificationSink);
+    }
 
+    /**
+     * Dispatch every element of a JSON-RPC batch concurrently and re-assemble
+     * the responses in request order. Notifications produce no entry; a batch
+     * made only of notifications produces no response at all.
+     */
+    private CompletableFuture<Object> processBatch(List<JsonRpcRequest> requests, String sessionId,
+            Consumer<byte[]> notificationSink) {
+        debug("--- Processing JSON-RPC batch of", requests.size(), "messages");
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    JsonRpcResponse.error(NullNode.getInstance(), -32600, "Invalid Request: empty batch"));
+        }
+
+        List<CompletableFuture<JsonRpcResponse>> futures = new ArrayList<>(requests.size());
+        for (JsonRpcRequest request : requests) {
+            if (request == null) {
+                futures.add(CompletableFuture.completedFuture(
+                        JsonRpcResponse.error(NullNode.getInstance(), -32600, "Invalid Request: batch element must be an object")));
+                continue;
+            }
+            // Fan out so a tool that does blocking work does not serialize the batch
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> processJsonRpcRequest(request, sessionId, notificationSink), BATCH_EXECUTOR)
+                    .thenCompose(future -> future)
+                    .exceptionally(e -> JsonRpcResponse.error(request.id(), -32603, "Internal error: " + e.getMessage())));
+        }
 
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<JsonRpcResponse> responses = new ArrayList<>(futures.size());
+                    for (int i = 0; i < futures.size(); i++) {
+                        JsonRpcResponse response = futures.get(i).join();
+                        JsonRpcRequest request = requests.get(i);
+                        if (response != null && (request == null || !request.isNotification())) {
+                            responses.add(response);
+                        }
+                    }
+                    return responses.isEmpty() ? null : responses;
+                });
+    }
 
-    private CompletableFuture<JsonNode> processJsonRpcRequest(JsonNode request, String sessionId) {
+    private CompletableFuture<JsonRpcResponse> processJsonRpcRequest(JsonRpcRequest request, String sessionId,
+            Consumer<byte[]> notificationSink) {
         try {
-            String method = request.path("method").asText();
-            JsonNode params = request.path("params");
-            JsonNode id = request.path("id");
+            String method = request.method();
+            JsonNode params = request.params();
+            JsonNode id = request.id();
 
             debug("--- Processing JSON-RPC method:", method, "id:", id);
 
@@ -216,9 +389,7 @@ public class StreamableServer {
             return switch (method) {
                 case "initialize" -> {
                     debug("    Handling initialize request - id:", id, "params:", params);
-                    JsonNode result = handleInitialize(params, id);
-                    debug("    Initialize result:", result);
-                    yield CompletableFuture.completedFuture(result);
+                    yield CompletableFuture.completedFuture(handleInitialize(params, id));
                 }
                 case "initialized" -> {
                     debug("    Handling initialized notification");
@@ -229,8 +400,8 @@ public class StreamableServer {
                     yield CompletableFuture.completedFuture(handleToolsList(id));
                 }
                 case "tools/call" -> {
-                    debug("    Handling tools/call request - params:", params);
-                    yield handleToolsCall(sessionId, params, id);
+                    debug("    Handling tools/call request - tool:", request.toolName());
+                    yield handleToolsCall(sessionId, request, id, notificationSink);
                 }
                 case "prompts/list" -> {
                     debug("    Handling prompts/list request");
@@ -260,199 +431,219 @@ public class StreamableServer {
                     debug("    Handling ping request");
                     yield CompletableFuture.completedFuture(handlePing(id));
                 }
-                case "notifications/cancelled", "notifications/initialized" -> {
+                case "notifications/cancelled" -> {
+                    debug("    Handling cancellation - params:", params);
+                    yield CompletableFuture.completedFuture(handleCancelled(sessionId, params));
+                }
+                case "notifications/initialized" -> {
                     debug("    Handling notification:", method);
                     yield CompletableFuture.completedFuture(handleNotification());
                 }
                 default -> {
                     debug("!!! Unknown method:", method);
                     yield CompletableFuture.completedFuture(
-                            createErrorResponseNode(id, -32601, "Method not found: " + method));
+                            JsonRpcResponse.error(id, -32601, "Method not found: " + method));
                 }
             };
         } catch (Exception e) {
             debug("!!! Internal error in processJsonRpcRequest:", e.getMessage());
             e.printStackTrace(System.err);
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(request.path("id"), -32603, "Internal error: " + e.getMessage()));
+                    JsonRpcResponse.error(request.id(), -32603, "Internal error: " + e.getMessage()));
         }
     }
 
-    private JsonNode handleInitialize(JsonNode params, JsonNode id) {
+    private JsonRpcResponse handleInitialize(JsonNode params, JsonNode id) {
         debug("    Initialize params:", params);
 
-        ObjectNode result = objectMapper.createObjectNode();
-        result.put("protocolVersion", "2024-11-05");
+        McpSchema.Implementation serverInfo = mcpService.getServerInfo();
+        debug("    Server info - name:", serverInfo.name(), "version:", serverInfo.version());
 
-        ObjectNode serverInfo = objectMapper.createObjectNode();
-        serverInfo.put("name", mcpService.getServerInfo().name());
-        serverInfo.put("version", mcpService.getServerInfo().version());
-        result.set("serverInfo", serverInfo);
+        return JsonRpcResponse.success(id, gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("protocolVersion", "2024-11-05");
 
-        debug("    Server info - name:", mcpService.getServerInfo().name(),
-              "version:", mcpService.getServerInfo().version());
+            gen.writeObjectFieldStart("serverInfo");
+            gen.writeStringField("name", serverInfo.name());
+            gen.writeStringField("version", serverInfo.version());
+            gen.writeEndObject();
 
-        ObjectNode capabilities = objectMapper.createObjectNode();
-        ObjectNode tools = objectMapper.createObjectNode();
-        capabilities.set("tools", tools);
-        ObjectNode prompts = objectMapper.createObjectNode();
-        capabilities.set("prompts", prompts);
-        ObjectNode resources = objectMapper.createObjectNode();
-        capabilities.set("resources", resources);
-        ObjectNode resourceTemplates = objectMapper.createObjectNode();
-        capabilities.set("resourceTemplates", resourceTemplates);
-        result.set("capabilities", capabilities);
+            gen.writeObjectFieldStart("capabilities");
+            writeEmptyObjectField(gen, "tools");
+            writeEmptyObjectField(gen, "prompts");
+            writeEmptyObjectField(gen, "resources");
+            writeEmptyObjectField(gen, "resourceTemplates");
+            gen.writeEndObject();
 
-        debug("    Initialize response prepared");
-        return createSuccessResponseNode(id, result);
+            gen.writeEndObject();
+        });
     }
 
-    private JsonNode handleInitialized(JsonNode id) {
+    private JsonRpcResponse handleInitialized(JsonNode id) {
         // This is a notification, typically no response needed
         // But we return success for compatibility
-        return createSuccessResponseNode(id, objectMapper.createObjectNode());
+        return JsonRpcResponse.success(id, StreamableServer::writeEmptyObject);
     }
 
-    private JsonNode handleToolsList(JsonNode id) {
-        debug("    Listing", mcpService.getTools().size(), "tools");
-
-        ObjectNode result = objectMapper.createObjectNode();
-        var toolsArray = objectMapper.createArrayNode();
-
-        for (McpTool tool : mcpService.getTools()) {
-            var spec = tool.getToolSpecification();
-            ObjectNode toolNode = objectMapper.createObjectNode();
-            toolNode.put("name", spec.tool().name());
-            toolNode.put("description", spec.tool().description());
-
-            debug("      Tool:", spec.tool().name(), "-", spec.tool().description());
-
-            // Convert inputSchema object to JSON node directly (not via toString())
-            JsonNode inputSchema = objectMapper.valueToTree(spec.tool().inputSchema());
-            toolNode.set("inputSchema", inputSchema);
-
-            toolsArray.add(toolNode);
-        }
-
-        result.set("tools", toolsArray);
-        debug("    tools/list response prepared");
-        return createSuccessResponseNode(id, result);
+    private JsonRpcResponse handleToolsList(JsonNode id) {
+        debug("    Listing", catalog.getTools().size(), "tools");
+        return JsonRpcResponse.success(id, catalog.getToolsListResult());
     }
 
-    private CompletableFuture<JsonNode> handleToolsCall(String sessionId, JsonNode params, JsonNode id) {
-        String toolName = params.path("name").asText();
-        JsonNode arguments = params.path("arguments");
+    private CompletableFuture<JsonRpcResponse> handleToolsCall(String sessionId, JsonRpcRequest rpcRequest, JsonNode id,
+            Consumer<byte[]> notificationSink) {
+        String toolName = rpcRequest.toolName();
+        Map<String, Object> args = rpcRequest.arguments();
 
         debug("    Tool call - name:", toolName);
-        debug("    Tool call - arguments:", arguments);
+        debug("    Tool call - arguments:", args);
         debug("    Session ID:", sessionId);
 
-        McpServerFeatures.AsyncToolSpecification spec = toolMap.get(toolName);
+        McpServerFeatures.AsyncToolSpecification spec = catalog.getTool(toolName);
         if (spec == null) {
-            debug("!!! Unknown tool:", toolName, "- Available tools:", toolMap.keySet());
+            debug("!!! Unknown tool:", toolName, "- Available tools:", catalog.getTools().keySet());
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32602, "Unknown tool: " + toolName));
+                    JsonRpcResponse.error(id, -32602, "Unknown tool: " + toolName));
         }
 
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> args = objectMapper.convertValue(arguments, Map.class);
-            debug("    Converted arguments:", args);
-
             // Create CallToolRequest for the tool handler
-            CallToolRequest request = new CallToolRequest(toolName, args);
+            CallToolRequest request = new CallToolRequest(toolName, args, rpcRequest.meta());
             debug("    Invoking tool handler for:", toolName);
 
-            McpAsyncServerExchange exchange = new McpAsyncServerExchange(sessionId, null, null, null, null);
+            long timeoutMs = resolveTimeoutMs(toolName, rpcRequest.meta());
 
-            return spec.callHandler().apply(exchange, request)
-                    .toFuture()
-                    .thenApply(result -> {
+            // Register the call so notifications/cancelled can reach it
+            ToolCallContext context = new ToolCallContext(sessionId, timeoutMs);
+            String callKey = rpcRequest.isNotification() ? null : callKey(sessionId, id);
+            if (callKey != null) {
+                inFlightCalls.put(callKey, context);
+            }
+            // Keeps the session from being evicted while the call runs
+            SessionState session = sessionId != null ? sessions.get(sessionId) : null;
+            if (session != null) {
+                session.callsInFlight.incrementAndGet();
+            }
+
+            Map<String, Object> transportMetadata = new HashMap<>();
+            transportMetadata.put(ToolCallContext.KEY, context);
+            if (sessionId != null) {
+                transportMetadata.put("session-id", sessionId);
+            }
+            // Notifications the tool sends through the exchange go straight to the transport;
+            // the capabilities tell the tool it cannot send requests back to the client
+            McpAsyncServerExchange exchange = new McpAsyncServerExchange(sessionId,
+                    new NotificationSession(objectMapper, notificationSink), NotificationSession.CAPABILITIES, null,
+                    McpTransportContext.create(transportMetadata));
+
+            // Cancelling the tracked future disposes the Mono, which cancels the tool's future
+            CompletableFuture<McpSchema.CallToolResult> call = context.track(spec.callHandler().apply(exchange, request).toFuture());
+            if (timeoutMs > 0) {
+                call.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+
+            return call
+                    .handle((result, e) -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof TimeoutException) {
+                            // Stop the tool's outbound work; the client gets an error instead
+                            context.cancel(ToolCallContext.CancelReason.TIMEOUT);
+                            debug("!!! Tool", toolName, "timed out after", timeoutMs, "ms");
+                            return JsonRpcResponse.error(id, REQUEST_TIMEOUT,
+                                    "Tool " + toolName + " timed out after " + timeoutMs + " ms");
+                        }
+                        ToolCallContext.CancelReason cancelReason = context.getCancelReason();
+                        if (cancelReason == ToolCallContext.CancelReason.CLIENT) {
+                            // The client cancelled the request, so it expects no response
+                            debug("    Tool", toolName, "cancelled by the client");
+                            return null;
+                        }
+                        if (cancelReason != null) {
+                            debug("!!! Tool", toolName, "cancelled by the server:", cancelReason);
+                            return JsonRpcResponse.error(id, -32603,
+                                    "Tool " + toolName + " cancelled: " + describe(cancelReason));
+                        }
+                        if (e != null) {
+                            debug("!!! Tool execution error for", toolName, ":", e.getMessage());
+                            e.printStackTrace(System.err);
+                            return JsonRpcResponse.error(id, -32603,
+                                    "Tool execution error: " + e.getMessage());
+                        }
                         debug("    Tool", toolName, "completed successfully");
                         debug("    Tool result content count:", result.content().size());
                         return createToolResultResponse(id, result);
                     })
-                    .exceptionally(e -> {
-                        debug("!!! Tool execution error for", toolName, ":", e.getMessage());
-                        e.printStackTrace(System.err);
-                        return createErrorResponseNode(id, -32603,
-                                "Tool execution error: " + e.getMessage());
+                    .whenComplete((response, e) -> {
+                        if (callKey != null) {
+                            inFlightCalls.remove(callKey, context);
+                        }
+                        if (session != null) {
+                            session.callsInFlight.decrementAndGet();
+                        }
                     });
         } catch (Exception e) {
             debug("!!! Exception during tool call setup:", e.getMessage());
             e.printStackTrace(System.err);
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32603, "Tool execution error: " + e.getMessage()));
+                    JsonRpcResponse.error(id, -32603, "Tool execution error: " + e.getMessage()));
         }
     }
 
-    private JsonNode createToolResultResponse(JsonNode id, McpSchema.CallToolResult result) {
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        var contentArray = objectMapper.createArrayNode();
-
-        for (var content : result.content()) {
-            ObjectNode contentNode = objectMapper.createObjectNode();
-            if (content instanceof McpSchema.TextContent textContent) {
-                contentNode.put("type", "text");
-                contentNode.put("text", textContent.text());
-            } else if (content instanceof McpSchema.ImageContent imageContent) {
-                contentNode.put("type", "image");
-                contentNode.put("data", imageContent.data());
-                contentNode.put("mimeType", imageContent.mimeType());
-            }
-            contentArray.add(contentNode);
+    /**
+     * Timeout for a tool call: the tool's own timeoutMs, else the server-wide
+     * TOOL_TIMEOUT_MS, shortened by a client-supplied _meta.timeoutMs.
+     * 0 means unbounded.
+     */
+    private long resolveTimeoutMs(String toolName, Map<String, Object> meta) {
+        long timeoutMs = catalog.getToolTimeoutMs(toolName);
+        if (timeoutMs <= 0) {
+            timeoutMs = defaultToolTimeoutMs;
         }
-
-        resultNode.set("content", contentArray);
-        if (result.isError() != null) {
-            resultNode.put("isError", result.isError());
+        if (meta != null && meta.get("timeoutMs") instanceof Number clientTimeout && clientTimeout.longValue() > 0) {
+            long requested = clientTimeout.longValue();
+            timeoutMs = timeoutMs > 0 ? Math.min(timeoutMs, requested) : requested;
         }
-
-        return createSuccessResponseNode(id, resultNode);
+        return timeoutMs;
     }
 
-    private JsonNode handlePromptsList(JsonNode id) {
-        debug("    Listing", mcpService.getPromptSpecifications().size(), "prompts");
-
-        ObjectNode result = objectMapper.createObjectNode();
-        var promptsArray = objectMapper.createArrayNode();
+    /**
+     * Serialize a tool result as a tools/call response, without running a tool.
+     * Lets a warmup load the serializers before the first call needs them.
+     */
+    public byte[] serializeToolResult(JsonNode id, McpSchema.CallToolResult result) {
+        return toJsonBytes(createToolResultResponse(id, result));
+    }
 
-        for (McpServerFeatures.AsyncPromptSpecification spec : mcpService.getPromptSpecifications()) {
-            var prompt = spec.prompt();
-            ObjectNode promptNode = objectMapper.createObjectNode();
-            promptNode.put("name", prompt.name());
-            promptNode.put("description", prompt.description());
-
-            // Convert arguments to JSON
-            var argumentsArray = objectMapper.createArrayNode();
-            for (var arg : prompt.arguments()) {
-                ObjectNode argNode = objectMapper.createObjectNode();
-                argNode.put("name", arg.name());
-                argNode.put("description", arg.description());
-                argNode.put("required", arg.required());
-                argumentsArray.add(argNode);
+    private JsonRpcResponse createToolResultResponse(JsonNode id, McpSchema.CallToolResult result) {
+        return JsonRpcResponse.success(id, gen -> {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("content");
+            for (var content : result.content()) {
+                writeContent(gen, content);
             }
-            promptNode.set("arguments", argumentsArray);
-
-            debug("      Prompt:", prompt.name(), "-", prompt.description());
-            promptsArray.add(promptNode);
-        }
+            gen.writeEndArray();
+            if (result.isError() != null) {
+                gen.writeBooleanField("isError", result.isError());
+            }
+            gen.writeEndObject();
+        });
+    }
 
-        result.set("prompts", promptsArray);
-        debug("    prompts/list response prepared");
-        return createSuccessResponseNode(id, result);
+    private JsonRpcResponse handlePromptsList(JsonNode id) {
+        debug("    Listing", catalog.getPrompts().size(), "prompts");
+        return JsonRpcResponse.success(id, catalog.getPromptsListResult());
     }
 
-    private CompletableFuture<JsonNode> handlePromptsGet(JsonNode params, JsonNode id) {
+    private CompletableFuture<JsonRpcResponse> handlePromptsGet(JsonNode params, JsonNode id) {
         String promptName = params.path("name").asText();
 
         debug("    Prompt get - name:", promptName);
 
-        McpServerFeatures.AsyncPromptSpecification spec = promptMap.get(promptName);
+        McpServerFeatures.AsyncPromptSpecification spec = catalog.getPrompt(promptName);
         if (spec == null) {
-            debug("!!! Unknown prompt:", promptName, "- Available prompts:", promptMap.keySet());
+            debug("!!! Unknown prompt:", promptName, "- Available prompts:", catalog.getPrompts().keySet());
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32602, "Unknown prompt: " + promptName));
+                    JsonRpcResponse.error(id, -32602, "Unknown prompt: " + promptName));
         }
 
         try {
@@ -489,66 +680,30 @@ public class StreamableServer {
             debug("!!! Exception during prompt get:", e.getMessage());
             e.printStackTrace(System.err);
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32603, "Prompt execution error: " + e.getMessage()));
+                    JsonRpcResponse.error(id, -32603, "Prompt execution error: " + e.getMessage()));
         }
     }
 
-    private JsonNode handleResourcesList(JsonNode id) {
-        debug("    Listing", mcpService.getResourceSpecifications().size(), "resources");
-
-        ObjectNode result = objectMapper.createObjectNode();
-        var resourcesArray = objectMapper.createArrayNode();
-
-        for (McpServerFeatures.AsyncResourceSpecification spec : mcpService.getResourceSpecifications()) {
-            var resource = spec.resource();
-            ObjectNode resourceNode = objectMapper.createObjectNode();
-            resourceNode.put("uri", resource.uri());
-            resourceNode.put("name", resource.name());
-            resourceNode.put("description", resource.description());
-            resourceNode.put("mimeType", resource.mimeType());
-
-            debug("      Resource:", resource.uri(), "-", resource.name());
-            resourcesArray.add(resourceNode);
-        }
-
-        result.set("resources", resourcesArray);
-        debug("    resources/list response prepared");
-        return createSuccessResponseNode(id, result);
+    private JsonRpcResponse handleResourcesList(JsonNode id) {
+        debug("    Listing", catalog.getResources().size(), "resources");
+        return JsonRpcResponse.success(id, catalog.getResourcesListResult());
     }
 
-    private JsonNode handleTemplatesList(JsonNode id) {
-        debug("    Listing", mcpService.getResourceTemplateSpecifications().size(), "templates");
-
-        ObjectNode result = objectMapper.createObjectNode();
-        var templatesArray = objectMapper.createArrayNode();
-
-        for (McpServerFeatures.AsyncResourceTemplateSpecification spec : mcpService.getResourceTemplateSpecifications()) {
-            var template = spec.resourceTemplate();
-            ObjectNode templateNode = objectMapper.createObjectNode();
-            templateNode.put("uriTemplate", template.uriTemplate());
-            templateNode.put("name", template.name());
-            templateNode.put("description", template.description());
-            templateNode.put("mimeType", template.mimeType());
-
-            debug("      Template:", template.name(), "-", template.uriTemplate());
-            templatesArray.add(templateNode);
-        }
-
-        result.set("resourceTemplates", templatesArray);
-        debug("    resources/templates/list response prepared");
-        return createSuccessResponseNode(id, result);
+    private JsonRpcResponse handleTemplatesList(JsonNode id) {
+        debug("    Listing", catalog.getTemplates().size(), "templates");
+        return JsonRpcResponse.success(id, catalog.getTemplatesListResult());
     }
 
-    private CompletableFuture<JsonNode> handleResourcesRead(JsonNode params, JsonNode id) {
+    private CompletableFuture<JsonRpcResponse> handleResourcesRead(JsonNode params, JsonNode id) {
         String uri = params.path("uri").asText();
 
         debug("    Resource read - uri:", uri);
 
-        McpServerFeatures.AsyncResourceSpecification spec = resourceMap.get(uri);
+        McpServerFeatures.AsyncResourceSpecification spec = catalog.getResource(uri);
         if (spec == null) {
-            debug("!!! Unknown resource:", uri, "- Available resources:", resourceMap.keySet());
+            debug("!!! Unknown resource:", uri, "- Available resources:", catalog.getResources().keySet());
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32602, "Unknown resource: " + uri));
+                    JsonRpcResponse.error(id, -32602, "Unknown resource: " + uri));
         }
 
         try {
@@ -566,29 +721,29 @@ public class StreamableServer {
                     .exceptionally(e -> {
                         debug("!!! Resource read error for", uri, ":", e.getMessage());
                         e.printStackTrace(System.err);
-                        return createErrorResponseNode(id, -32603,
+                        return JsonRpcResponse.error(id, -32603,
                                 "Resource read error: " + e.getMessage());
                     });
         } catch (Exception e) {
             debug("!!! Exception during resource read setup:", e.getMessage());
             e.printStackTrace(System.err);
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32603, "Resource read error: " + e.getMessage()));
+                    JsonRpcResponse.error(id, -32603, "Resource read error: " + e.getMessage()));
         }
     }
 
-    private CompletableFuture<JsonNode> handleTemplatesRead(JsonNode params, JsonNode id) {
+    private CompletableFuture<JsonRpcResponse> handleTemplatesRead(JsonNode params, JsonNode id) {
         String uriTemplate = params.path("uriTemplate").asText();
 
         debug("    Template read - uriTemplate:", uriTemplate);
 
         // Find template that matches the uriTemplate
-        McpServerFeatures.AsyncResourceTemplateSpecification spec = templateMap.get(uriTemplate);
+        McpServerFeatures.AsyncResourceTemplateSpecification spec = catalog.getTemplate(uriTemplate);
 
         if (spec == null) {
-            debug("!!! No template matches uriTemplate:", uriTemplate, "- Available templates:", templateMap.keySet());
+            debug("!!! No template matches uriTemplate:", uriTemplate, "- Available templates:", catalog.getTemplates().keySet());
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32602, "No template matches URI template: " + uriTemplate));
+                    JsonRpcResponse.error(id, -32602, "No template matches URI template: " + uriTemplate));
         }
 
         try {
@@ -606,110 +761,161 @@ public class StreamableServer {
                     .exceptionally(e -> {
                         debug("!!! Template read error for", uriTemplate, ":", e.getMessage());
                         e.printStackTrace(System.err);
-                        return createErrorResponseNode(id, -32603,
+                        return JsonRpcResponse.error(id, -32603,
                                 "Template read error: " + e.getMessage());
                     });
         } catch (Exception e) {
             debug("!!! Exception during template read setup:", e.getMessage());
             e.printStackTrace(System.err);
             return CompletableFuture.completedFuture(
-                    createErrorResponseNode(id, -32603, "Template read error: " + e.getMessage()));
+                    JsonRpcResponse.error(id, -32603, "Template read error: " + e.getMessage()));
         }
     }
 
-    private JsonNode createPromptResultResponse(JsonNode id, McpSchema.GetPromptResult result) {
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        resultNode.put("description", result.description());
-
-        var messagesArray = objectMapper.createArrayNode();
-        for (var message : result.messages()) {
-            ObjectNode messageNode = objectMapper.createObjectNode();
-            messageNode.put("role", message.role().toString().toLowerCase());
-
-            var content = message.content();
-            ObjectNode contentNode = objectMapper.createObjectNode();
-            if (content instanceof McpSchema.TextContent textContent) {
-                contentNode.put("type", "text");
-                contentNode.put("text", textContent.text());
-            } else if (content instanceof McpSchema.ImageContent imageContent) {
-                contentNode.put("type", "image");
-                contentNode.put("data", imageContent.data());
-                contentNode.put("mimeType", imageContent.mimeType());
+    private JsonRpcResponse createPromptResultResponse(JsonNode id, McpSchema.GetPromptResult result) {
+        return JsonRpcResponse.success(id, gen -> {
+            gen.writeStartObject();
+            gen.writeStringField("description", result.description());
+
+            gen.writeArrayFieldStart("messages");
+            for (var message : result.messages()) {
+                gen.writeStartObject();
+                gen.writeStringField("role", message.role().toString().toLowerCase());
+                gen.writeFieldName("content");
+                writeContent(gen, message.content());
+                gen.writeEndObject();
             }
-            messageNode.set("content", contentNode);
-            messagesArray.add(messageNode);
-        }
+            gen.writeEndArray();
 
-        resultNode.set("messages", messagesArray);
-        return createSuccessResponseNode(id, resultNode);
+            gen.writeEndObject();
+        });
     }
 
-    private JsonNode createResourceResultResponse(JsonNode id, McpSchema.ReadResourceResult result) {
-        ObjectNode resultNode = objectMapper.createObjectNode();
-        var contentsArray = objectMapper.createArrayNode();
-
-        for (var content : result.contents()) {
-            ObjectNode contentNode = objectMapper.createObjectNode();
-            if (content instanceof McpSchema.TextResourceContents textContent) {
-                contentNode.put("uri", textContent.uri());
-                contentNode.put("mimeType", textContent.mimeType());
-                contentNode.put("text", textContent.text());
+    private JsonRpcResponse createResourceResultResponse(JsonNode id, McpSchema.ReadResourceResult result) {
+        return JsonRpcResponse.success(id, gen -> {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("contents");
+            for (var content : result.contents()) {
+                gen.writeStartObject();
+                if (content instanceof McpSchema.TextResourceContents textContent) {
+                    gen.writeStringField("uri", textContent.uri());
+                    gen.writeStringField("mimeType", textContent.mimeType());
+                    gen.writeStringField("text", textContent.text());
+                }
+                gen.writeEndObject();
             }
-            contentsArray.add(contentNode);
+            gen.writeEndArray();
+            gen.writeEndObject();
+        });
+    }
+
+    private JsonRpcResponse handlePing(JsonNode id) {
+        return JsonRpcResponse.success(id, StreamableServer::writeEmptyObject);
+    }
+
+    /**
+     * Cancel the in-flight request named by params.requestId. Unknown or
+     * already finished requests are ignored, as the spec allows.
+     */
+    private JsonRpcResponse handleCancelled(String sessionId, JsonNode params) {
+        JsonNode requestId = params.path("requestId");
+        if (requestId.isMissingNode() || requestId.isNull()) {
+            debug("!!! Cancellation without requestId");
+            return null;
         }
 
-        resultNode.set("contents", contentsArray);
-        return createSuccessResponseNode(id, resultNode);
+        ToolCallContext context = inFlightCalls.remove(callKey(sessionId, requestId));
+        if (context == null) {
+            debug("    No in-flight request to cancel:", requestId);
+            return null;
+        }
+
+        debug("    Cancelling request:", requestId, "reason:", params.path("reason").asText(""));
+        context.cancel(ToolCallContext.CancelReason.CLIENT);
+        return null;
     }
 
-    private JsonNode handlePing(JsonNode id) {
-        return createSuccessResponseNode(id, objectMapper.createObjectNode());
+    private static String describe(ToolCallContext.CancelReason reason) {
+        return switch (reason) {
+            case SESSION_CLOSED -> "session closed";
+            case SHUTDOWN -> "server shutting down";
+            case TIMEOUT -> "timed out";
+            case CLIENT -> "cancelled by the client";
+        };
+    }
+
+    private static String callKey(String sessionId, JsonNode requestId) {
+        // Keyed on the id's JSON text so 1 and "1" stay distinct
+        return sessionId + CALL_KEY_SEPARATOR + requestId.toString();
     }
 
-    private JsonNode handleNotification() {
+    private JsonRpcResponse handleNotification() {
         // Notifications don't require a response
         return null;
     }
 
-    private JsonNode createSuccessResponseNode(JsonNode id, JsonNode result) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.set("id", id);
-        response.set("result", result);
-        return response;
+    private static void writeContent(JsonGenerator gen, McpSchema.Content content) throws IOException {
+        gen.writeStartObject();
+        if (content instanceof McpSchema.TextContent textContent) {
+            gen.writeStringField("type", "text");
+            gen.writeStringField("text", textContent.text());
+        } else if (content instanceof McpSchema.ImageContent imageContent) {
+            gen.writeStringField("type", "image");
+            gen.writeStringField("data", imageContent.data());
+            gen.writeStringField("mimeType", imageContent.mimeType());
+        }
+        gen.writeEndObject();
     }
 
-    private JsonNode createErrorResponseNode(JsonNode id, int code, String message) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.set("id", id);
+    private static void writeEmptyObject(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeEndObject();
+    }
 
-        ObjectNode error = objectMapper.createObjectNode();
-        error.put("code", code);
-        error.put("message", message);
-        response.set("error", error);
+    private static void writeEmptyObjectField(JsonGenerator gen, String fieldName) throws IOException {
+        gen.writeObjectFieldStart(fieldName);
+        gen.writeEndObject();
+    }
 
-        return response;
+    private JsonRpcResponse decodeError(Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            debug("!!! Invalid request:", e.getMessage());
+            return JsonRpcResponse.error(NullNode.getInstance(), -32600, "Invalid Request: " + e.getMessage());
+        }
+        debug("!!! Parse error:", e.getMessage());
+        return JsonRpcResponse.error(NullNode.getInstance(), -32700, "Parse error: " + e.getMessage());
     }
 
-    private String createErrorResponse(String id, int code, String message) {
+    private String toJsonString(Object response) {
+        // Notifications return null - no response should be sent
+        if (response == null) {
+            debug("<<< Response: (none - notification)");
+            return null;
+        }
         try {
-            ObjectNode response = objectMapper.createObjectNode();
-            response.put("jsonrpc", "2.0");
-            if (id != null) {
-                response.put("id", id);
-            } else {
-                response.putNull("id");
-            }
-
-            ObjectNode error = objectMapper.createObjectNode();
-            error.put("code", code);
-            error.put("message", message);
-            response.set("error", error);
+            String responseStr = objectMapper.writeValueAsString(response);
+            debug("<<< Response:", responseStr);
+            return responseStr;
+        } catch (Exception e) {
+            debug("!!! Serialization error:", e.getMessage());
+            return SERIALIZATION_ERROR;
+        }
+    }
 
-            return objectMapper.writeValueAsString(response);
+    private byte[] toJsonBytes(Object response) {
+        if (response == null) {
+            debug("<<< Response: (none - notification)");
+            return null;
+        }
+        try {
+            byte[] responseBytes = objectMapper.writeValueAsBytes(response);
+            if (Utility.isDebug()) {
+                debug("<<< Response:", new String(responseBytes, StandardCharsets.UTF_8));
+            }
+            return responseBytes;
         } catch (Exception e) {
-            return "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32603,\"message\":\"Internal error\"}}";
+            debug("!!! Serialization error:", e.getMessage());
+            return SERIALIZATION_ERROR.getBytes(StandardCharsets.UTF_8);
         }
     }
 
@@ -717,10 +923,12 @@ public class StreamableServer {
      * Session state holder for stateful connections.
      */
     private static class SessionState {
-        @SuppressWarnings("unused")
         Consumer<String> sseConsumer;
+        final AtomicInteger callsInFlight = new AtomicInteger();
         // Add more session state as needed
-    }
-
 
+        boolean hasCallsInFlight() {
+            return callsInFlight.get() > 0;
+        }
+    }
 }
@@ -0,0 +1,435 @@
+package io.mcp.core.server;
+
+import static io.mcp.core.utility.Utility.debug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.mcp.core.utility.ConfigUtility;
+
+/**
+ * HTTP/1.1 engine serving each connection on its own virtual thread.
+ *
+ * One acceptor thread drains the listen queue, whose length is set by
+ * HTTP_BACKLOG, and hands each connection to the executor. Connections are
+ * read and written with blocking socket streams; on a virtual thread a
+ * blocked connection costs no platform thread while it waits. Connections
+ * are kept alive for HTTP_KEEPALIVE_MS between requests. Pipelined requests
+ * wait in the connection's read buffer and are answered in order, each once
+ * the previous exchange has closed, so an asynchronous handler can complete
+ * its response later without blocking the next read.
+ *
+ * Requests declaring a body larger than HTTP_MAX_BODY_BYTES get 413 before
+ * any handler runs; chunked bodies fail to read past the limit.
+ */
+final class VirtualThreadHttpEngine implements HttpEngine {
+
+    static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final int keepAliveMs;
+    private final long maxBodyBytes;
+
+    // Longest path first, so the first match is the most specific one
+    private volatile List<Context> contexts = List.of();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private Executor executor;
+    private ExecutorService ownExecutor;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    VirtualThreadHttpEngine(InetSocketAddress address, int backlog) throws IOException {
+        this.keepAliveMs = Math.max(0, ConfigUtility.getInt("HTTP_KEEPALIVE_MS", 30000));
+        this.maxBodyBytes = Math.max(1, ConfigUtility.getInt("HTTP_MAX_BODY_BYTES", 4 * 1024 * 1024));
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, backlog);
+    }
+
+    @Override
+    public synchronized void createContext(String path, HttpHandler handler) {
+        List<Context> updated = new ArrayList<>(contexts);
+        updated.removeIf(context -> context.getPath().equals(path));
+        updated.add(new Context(path, handler));
+        updated.sort(Comparator.comparingInt((Context context) -> context.getPath().length()).reversed());
+        contexts = List.copyOf(updated);
+    }
+
+    @Override
+    public synchronized void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (executor == null) {
+            ownExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            executor = ownExecutor;
+        }
+        running = true;
+        // Not a daemon: like the JDK server's dispatcher, it keeps the process alive
+        acceptor = new Thread(this::acceptLoop, "mcp-http-acceptor");
+        acceptor.start();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {}
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+        try {
+            acceptor.join(Math.max(1000, delaySeconds * 1000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "virtual";
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                debug("Accept failed:", e.getMessage());
+                continue;
+            }
+
+            Connection connection = new Connection(channel);
+            connections.add(connection);
+            try {
+                executor.execute(connection::serve);
+            } catch (RejectedExecutionException e) {
+                connection.close();
+            }
+        }
+    }
+
+    private Context findContext(String path) {
+        for (Context context : contexts) {
+            if (path.startsWith(context.getPath())) {
+                return context;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One client connection, serving its requests in order.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private volatile VirtualThreadHttpExchange current;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void serve() {
+            try {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Socket socket = channel.socket();
+                socket.setSoTimeout(keepAliveMs);
+                InputStream in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+
+                while (running) {
+                    VirtualThreadHttpExchange exchange = readRequest(socket, in, out);
+                    if (exchange == null) {
+                        break;
+                    }
+                    current = exchange;
+                    if (!dispatch(exchange) || !exchange.awaitClose()) {
+                        break;
+                    }
+                    current = null;
+                }
+            } catch (SocketTimeoutException e) {
+                // Idle keep-alive connection
+            } catch (IOException e) {
+                debug("HTTP connection closed:", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Read the next request head, or null at end of stream. Malformed
+         * requests are answered here and end the connection.
+         */
+        private VirtualThreadHttpExchange readRequest(Socket socket, InputStream in, OutputStream out) throws IOException {
+            try {
+                return readHead(socket, in, out);
+            } catch (MalformedRequestException e) {
+                debug("!!! Rejecting HTTP request:", e.getMessage());
+                writeStatus(out, 431, "Request Header Fields Too Large");
+                return null;
+            }
+        }
+
+        private VirtualThreadHttpExchange readHead(Socket socket, InputStream in, OutputStream out) throws IOException {
+            int[] budget = {MAX_HEADER_BYTES};
+            String requestLine;
+            do {
+                requestLine = readLine(in, budget);
+                if (requestLine == null) {
+                    return null;
+                }
+            } while (requestLine.isEmpty());
+
+            String[] parts = requestLine.split(" ");
+            URI uri = null;
+            if (parts.length == 3) {
+                try {
+                    uri = new URI(parts[1]);
+                } catch (URISyntaxException e) {
+                    uri = null;
+                }
+            }
+            if (uri == null || !parts[2].startsWith("HTTP/1.")) {
+                writeStatus(out, 400, "Bad Request");
+                return null;
+            }
+
+            Headers headers = new Headers();
+            String line;
+            while ((line = readLine(in, budget)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    writeStatus(out, 400, "Bad Request");
+                    return null;
+                }
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+            if (line == null) {
+                return null;
+            }
+            String framingError = framingError(headers);
+            if (framingError != null) {
+                // The body's end would be ambiguous, so the next request's start would be too
+                debug("!!! Rejecting HTTP request:", framingError);
+                writeStatus(out, 400, "Bad Request");
+                return null;
+            }
+
+            VirtualThreadHttpExchange exchange = new VirtualThreadHttpExchange(socket, parts[0], uri, parts[2], headers, in, out, maxBodyBytes);
+            if (exchange.getDeclaredLength() > maxBodyBytes) {
+                writeStatus(out, 413, "Payload Too Large");
+                return null;
+            }
+            return exchange;
+        }
+
+        /**
+         * Run the handler of the request's context. False if the connection
+         * cannot continue.
+         */
+        private boolean dispatch(VirtualThreadHttpExchange exchange) throws IOException {
+            Context context = findContext(exchange.getRequestURI().getPath());
+            if (context == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return true;
+            }
+            exchange.setContext(context);
+            exchange.sendContinueIfExpected();
+            try {
+                context.getHandler().handle(exchange);
+                return true;
+            } catch (MalformedRequestException e) {
+                debug("!!! Rejecting HTTP request body:", e.getMessage());
+                if (exchange.getResponseCode() < 0) {
+                    writeStatus(exchange.getOutputStream(), 400, "Bad Request");
+                }
+                exchange.abort();
+                return false;
+            } catch (Exception e) {
+                debug("Unhandled error in HTTP handler:", e.getMessage());
+                exchange.abort();
+                return false;
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            VirtualThreadHttpExchange exchange = current;
+            if (exchange != null) {
+                exchange.abort();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Why the body framing of a request head cannot be trusted, or null.
+     * Content-Length must be one non-negative number (repeats must agree)
+     * and cannot be combined with Transfer-Encoding.
+     */
+    static String framingError(Headers headers) {
+        List<String> lengths = headers.get("Content-Length");
+        if (lengths == null) {
+            return null;
+        }
+        if (headers.containsKey("Transfer-Encoding")) {
+            return "Both Transfer-Encoding and Content-Length";
+        }
+        String first = null;
+        for (String header : lengths) {
+            for (String value : header.split(",", -1)) {
+                value = value.trim();
+                if (value.isEmpty() || value.length() > 18 || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                    return "Invalid Content-Length: " + header;
+                }
+                if (first == null) {
+                    first = value;
+                } else if (Long.parseLong(first) != Long.parseLong(value)) {
+                    return "Conflicting Content-Length values: " + lengths;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a CRLF (or LF) terminated ISO-8859-1 line, charging its length
+     * to the header budget. Null at end of stream.
+     */
+    static String readLine(InputStream in, int[] budget) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (--budget[0] < 0) {
+                throw new MalformedRequestException("Request head exceeds " + MAX_HEADER_BYTES + " bytes");
+            }
+            if (b == '\n') {
+                int length = sb.length();
+                if (length > 0 && sb.charAt(length - 1) == '\r') {
+                    sb.setLength(length - 1);
+                }
+                return sb.toString();
+            }
+            sb.append((char) b);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static void writeStatus(OutputStream out, int code, String reason) throws IOException {
+        String response = "HTTP/1.1 " + code + " " + reason + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    /**
+     * Registered handler path.
+     */
+    private static final class Context extends HttpContext {
+
+        private final String path;
+        private HttpHandler handler;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final List<Filter> filters = new ArrayList<>();
+        private Authenticator authenticator;
+
+        Context(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        @Override
+        public HttpHandler getHandler() {
+            return handler;
+        }
+
+        @Override
+        public void setHandler(HttpHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public HttpServer getServer() {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public List<Filter> getFilters() {
+            return filters;
+        }
+
+        @Override
+        public Authenticator setAuthenticator(Authenticator authenticator) {
+            Authenticator previous = this.authenticator;
+            this.authenticator = authenticator;
+            return previous;
+        }
+
+        @Override
+        public Authenticator getAuthenticator() {
+            return authenticator;
+        }
+    }
+}
@@ -0,0 +1,578 @@
+package io.mcp.core.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+/**
+ * One request/response on a {@link VirtualThreadHttpEngine} connection.
+ *
+ * Follows the HttpExchange contract of the JDK server: a response length of
+ * 0 streams a chunked body, -1 sends none and completes the exchange, and
+ * closing the response body closes the exchange. Closing reports whether the
+ * connection can carry another request.
+ */
+final class VirtualThreadHttpExchange extends HttpExchange {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final long DRAIN_LIMIT = 64 * 1024;
+
+    private final Socket socket;
+    private final String method;
+    private final URI uri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final OutputStream out;
+    private final long declaredLength;
+    private final InputStream requestBody;
+    private final OutputStream responseBody = new ResponseStream();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+    private HttpContext context;
+    private InputStream requestBodyOverride;
+    private OutputStream responseBodyOverride;
+    private volatile int responseCode = -1;
+    private volatile OutputStream bodyStream;
+    // Cleared by abort() from the connection's thread while a handler may be responding
+    private volatile boolean keepAlive;
+
+    VirtualThreadHttpExchange(Socket socket, String method, URI uri, String protocol, Headers requestHeaders,
+                    InputStream in, OutputStream out, long maxBodyBytes) {
+        this.socket = socket;
+        this.method = method;
+        this.uri = uri;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.out = out;
+
+        String connection = requestHeaders.getFirst("Connection");
+        this.keepAlive = "HTTP/1.1".equals(protocol) ? !"close".equalsIgnoreCase(connection) : "keep-alive".equalsIgnoreCase(connection);
+
+        // The engine has rejected heads whose framing is ambiguous (see framingError)
+        String transferEncoding = requestHeaders.getFirst("Transfer-Encoding");
+        String contentLength = requestHeaders.getFirst("Content-Length");
+        if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            this.declaredLength = 0;
+            this.requestBody = new ChunkedInputStream(in, maxBodyBytes);
+        } else if (contentLength != null) {
+            int comma = contentLength.indexOf(',');
+            this.declaredLength = Long.parseLong((comma >= 0 ? contentLength.substring(0, comma) : contentLength).trim());
+            this.requestBody = new FixedLengthInputStream(in, Math.min(declaredLength, maxBodyBytes));
+        } else {
+            this.declaredLength = 0;
+            this.requestBody = InputStream.nullInputStream();
+        }
+    }
+
+    long getDeclaredLength() {
+        return declaredLength;
+    }
+
+    OutputStream getOutputStream() {
+        return out;
+    }
+
+    void setContext(HttpContext context) {
+        this.context = context;
+    }
+
+    void sendContinueIfExpected() throws IOException {
+        if ("100-continue".equalsIgnoreCase(requestHeaders.getFirst("Expect"))) {
+            synchronized (out) {
+                out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Wait until the handler closes the exchange. True if the connection
+     * can be reused for the next request.
+     */
+    boolean awaitClose() {
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * End the exchange without completing the response; the connection is closed.
+     */
+    void abort() {
+        keepAlive = false;
+        closed.set(true);
+        done.complete(false);
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        boolean reusable = keepAlive;
+        try {
+            OutputStream body = bodyStream;
+            if (body == null) {
+                // No response was sent: the client cannot tell where the next one starts
+                reusable = false;
+            } else {
+                body.close();
+                if (body instanceof FixedLengthOutputStream fixed && !fixed.isComplete()) {
+                    reusable = false;
+                }
+            }
+            // Skip what the handler did not read so the next request starts at its head
+            if (reusable && requestBody.skip(DRAIN_LIMIT) >= DRAIN_LIMIT) {
+                reusable = false;
+            }
+        } catch (IOException e) {
+            reusable = false;
+        }
+        done.complete(reusable);
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBodyOverride != null ? requestBodyOverride : requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBodyOverride != null ? responseBodyOverride : responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int code, long length) throws IOException {
+        if (bodyStream != null) {
+            throw new IOException("Response headers already sent");
+        }
+        boolean noBody = length < 0 || code == 204 || code == 304 || "HEAD".equals(method);
+
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(code).append(' ').append(reasonPhrase(code)).append("\r\n");
+        head.append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC))).append("\r\n");
+        responseHeaders.remove("Content-Length");
+        responseHeaders.remove("Transfer-Encoding");
+        if (!keepAlive) {
+            responseHeaders.set("Connection", "close");
+        }
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (noBody) {
+            if (code != 204 && code != 304) {
+                head.append("Content-Length: 0\r\n");
+            }
+        } else if (length == 0) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            head.append("Content-Length: ").append(length).append("\r\n");
+        }
+        head.append("\r\n");
+
+        synchronized (out) {
+            out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+        responseCode = code;
+        bodyStream = noBody ? new FixedLengthOutputStream(out, 0) : length == 0 ? new ChunkedOutputStream(out) : new FixedLengthOutputStream(out, length);
+        if (noBody) {
+            close();
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) socket.getRemoteSocketAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBodyOverride = i;
+        }
+        if (o != null) {
+            responseBodyOverride = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private static String reasonPhrase(int code) {
+        switch (code) {
+            case 200: return "OK";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 413: return "Payload Too Large";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "Status";
+        }
+    }
+
+    /**
+     * Body stream handed to handlers: writes go to the framing stream chosen
+     * by sendResponseHeaders, and closing it closes the exchange.
+     */
+    private final class ResponseStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            body().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            body().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            body().flush();
+        }
+
+        @Override
+        public void close() {
+            VirtualThreadHttpExchange.this.close();
+        }
+
+        private OutputStream body() throws IOException {
+            OutputStream body = bodyStream;
+            if (body == null) {
+                throw new IOException("Response headers not sent");
+            }
+            if (closed.get()) {
+                throw new IOException("Exchange closed");
+            }
+            return body;
+        }
+    }
+
+    private static final class FixedLengthInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+    }
+
+    private final class ChunkedInputStream extends InputStream {
+
+        private final InputStream in;
+        private final long maxBytes;
+        private long total;
+        private long chunkRemaining;
+        private boolean inBody;
+        private boolean eof;
+
+        ChunkedInputStream(InputStream in, long maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == 1 ? one[0] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof || !nextChunk()) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, chunkRemaining));
+            if (n < 0) {
+                throw new IOException("Truncated chunked request body");
+            }
+            chunkRemaining -= n;
+            total += n;
+            if (total > maxBytes) {
+                throw new PayloadTooLargeException(maxBytes);
+            }
+            return n;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (chunkRemaining > 0) {
+                return true;
+            }
+            int[] budget = {VirtualThreadHttpEngine.MAX_HEADER_BYTES};
+            if (inBody) {
+                // CRLF after the previous chunk's data
+                String end = VirtualThreadHttpEngine.readLine(in, budget);
+                if (end != null && !end.isEmpty()) {
+                    throw malformed("Chunk data longer than its size");
+                }
+            }
+            String sizeLine = VirtualThreadHttpEngine.readLine(in, budget);
+            if (sizeLine == null) {
+                throw new IOException("Truncated chunked request body");
+            }
+            int extension = sizeLine.indexOf(';');
+            String digits = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+            // Hex digits only: parseLong would also take a sign
+            if (digits.isEmpty() || digits.length() > 15 || !digits.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+                throw malformed("Invalid chunk size: " + sizeLine);
+            }
+            long size = Long.parseLong(digits, 16);
+            if (size == 0) {
+                // Skip trailers up to the empty line
+                String trailer;
+                while ((trailer = VirtualThreadHttpEngine.readLine(in, budget)) != null && !trailer.isEmpty()) {
+                    // ignored
+                }
+                eof = true;
+                return false;
+            }
+            chunkRemaining = size;
+            inBody = true;
+            return true;
+        }
+    }
+
+    /**
+     * The rest of the connection cannot be framed; it is closed after this exchange.
+     */
+    private MalformedRequestException malformed(String reason) {
+        keepAlive = false;
+        return new MalformedRequestException(reason);
+    }
+
+    private static final class FixedLengthOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long remaining;
+
+        FixedLengthOutputStream(OutputStream out, long length) {
+            this.out = out;
+            this.remaining = length;
+        }
+
+        boolean isComplete() {
+            return remaining == 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Response body exceeds declared length");
+            }
+            out.write(b);
+            remaining--;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Response body exceeds declared length");
+            }
+            out.write(b, off, len);
+            remaining -= len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Buffers writes into chunks; flush sends the pending chunk, so each
+     * flushed SSE event goes out as one chunk.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+
+        private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8 * 1024];
+        private int count;
+        private boolean closed;
+
+        ChunkedOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeChunk(buffer, 0, count);
+                count = 0;
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (count + len > buffer.length) {
+                writeChunk(buffer, 0, count);
+                count = 0;
+            }
+            if (len >= buffer.length) {
+                writeChunk(b, off, len);
+            } else {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk(buffer, 0, count);
+                count = 0;
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+            out.write(LAST_CHUNK);
+            out.flush();
+        }
+
+        private void writeChunk(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            out.write(Integer.toHexString(len).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+            out.write(b, off, len);
+            out.write(CRLF);
+        }
+    }
+}
@@ -1,30 +1,140 @@
 package io.mcp.core.service;
 
+import static io.mcp.core.utility.Utility.debug;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import io.mcp.core.protocol.McpService;
 import io.mcp.core.protocol.McpTool;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpServerFeatures.AsyncPromptSpecification;
 import io.modelcontextprotocol.server.McpServerFeatures.AsyncResourceSpecification;
 import io.modelcontextprotocol.server.McpServerFeatures.AsyncResourceTemplateSpecification;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.CallToolRequest;
+import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
 import io.modelcontextprotocol.spec.McpSchema.Implementation;
 
 /*
 
 This service combines multiple services into one.
-This will be served at the root path /mcp.
-
+This will be served at the prefix root, /mcp by default.
 
+Everything is indexed once, when the service is built. A tool, prompt or
+resource template name offered by more than one module is exposed as
+{module}_{name} for each of them, numbered ({module}_{name}_2) if that is
+another module's name already; unique names are kept as is. Resource URIs
+cannot be qualified: when two modules offer the same URI, the first
+module's resource is served and the clash is logged.
 
 */
 
 public class CombinedService implements McpService{
 
+    public static final String MODULE = "root";
+    public static final String NAMESPACE_SEPARATOR = "_";
+
+    private final List<McpService> services;
+    private final List<McpTool> tools;
+    private final Map<String, McpTool> toolIndex;
+    private final List<AsyncPromptSpecification> prompts;
+    private final List<AsyncResourceSpecification> resources;
+    private final List<AsyncResourceTemplateSpecification> templates;
 
-    private List<McpService> services;
     public CombinedService(List<McpService> services) {
-        this.services = services;
+        this.services = List.copyOf(services);
+
+        // Each service builds its specs on request, so ask once
+        Map<McpService, Map<String, McpTool>> serviceTools = new HashMap<>();
+        Map<McpService, List<AsyncPromptSpecification>> servicePrompts = new HashMap<>();
+        Map<McpService, List<AsyncResourceTemplateSpecification>> serviceTemplates = new HashMap<>();
+        Map<String, Integer> toolCounts = new HashMap<>();
+        Map<String, Integer> promptCounts = new HashMap<>();
+        Map<String, Integer> templateCounts = new HashMap<>();
+        for (McpService service : this.services) {
+            Map<String, McpTool> named = new LinkedHashMap<>();
+            for (McpTool tool : service.getTools()) {
+                named.put(tool.getTool().name(), tool);
+            }
+            serviceTools.put(service, named);
+            servicePrompts.put(service, service.getPromptSpecifications());
+            serviceTemplates.put(service, service.getResourceTemplateSpecifications());
+            named.keySet().forEach(name -> toolCounts.merge(name, 1, Integer::sum));
+            for (AsyncPromptSpecification prompt : servicePrompts.get(service)) {
+                promptCounts.merge(prompt.prompt().name(), 1, Integer::sum);
+            }
+            for (AsyncResourceTemplateSpecification template : serviceTemplates.get(service)) {
+                templateCounts.merge(template.resourceTemplate().name(), 1, Integer::sum);
+            }
+        }
+
+        // Unique names are kept, so a qualified name must not take one of them
+        Set<String> toolNames = reserved(toolCounts);
+        Set<String> promptNames = reserved(promptCounts);
+        Set<String> templateNames = reserved(templateCounts);
+
+        Map<String, McpTool> toolIndex = new LinkedHashMap<>();
+        Map<String, AsyncPromptSpecification> promptIndex = new LinkedHashMap<>();
+        Map<String, AsyncResourceSpecification> resourceIndex = new LinkedHashMap<>();
+        Map<String, String> resourceModules = new HashMap<>();
+        Map<String, AsyncResourceTemplateSpecification> templateIndex = new LinkedHashMap<>();
+
+        for (McpService service : this.services) {
+            String module = service.getModule();
+            for (Map.Entry<String, McpTool> entry : serviceTools.get(service).entrySet()) {
+                String name = entry.getKey();
+                McpTool tool = entry.getValue();
+                if (toolCounts.get(name) > 1) {
+                    String qualified = qualify("Tool", module, name, toolNames);
+                    debug("Tool", name, "is offered by several modules, combined as", qualified);
+                    toolIndex.put(qualified, new NamespacedTool(tool, qualified));
+                } else {
+                    toolIndex.put(name, tool);
+                }
+            }
+            for (AsyncPromptSpecification spec : servicePrompts.get(service)) {
+                String name = spec.prompt().name();
+                if (promptCounts.get(name) > 1) {
+                    String qualified = qualify("Prompt", module, name, promptNames);
+                    promptIndex.put(qualified, renamePrompt(spec, qualified));
+                } else {
+                    promptIndex.put(name, spec);
+                }
+            }
+            for (AsyncResourceTemplateSpecification spec : serviceTemplates.get(service)) {
+                String name = spec.resourceTemplate().name();
+                if (templateCounts.get(name) > 1) {
+                    String qualified = qualify("Template", module, name, templateNames);
+                    templateIndex.put(qualified, renameTemplate(spec, qualified));
+                } else {
+                    templateIndex.put(name, spec);
+                }
+            }
+            for (AsyncResourceSpecification spec : service.getResourceSpecifications()) {
+                // A URI names the resource itself and cannot be qualified
+                String uri = spec.resource().uri();
+                String owner = resourceModules.putIfAbsent(uri, module);
+                if (owner == null) {
+                    resourceIndex.put(uri, spec);
+                } else {
+                    debug("!!! Resource", uri, "is offered by modules", owner, "and", module, "- serving the one of", owner);
+                }
+            }
+        }
+
+        this.toolIndex = Collections.unmodifiableMap(toolIndex);
+        this.tools = List.copyOf(toolIndex.values());
+        this.prompts = List.copyOf(promptIndex.values());
+        this.resources = List.copyOf(resourceIndex.values());
+        this.templates = List.copyOf(templateIndex.values());
     }
 
     @Override
@@ -35,35 +145,163 @@ public class CombinedService implements McpService{
 
     @Override
     public List<McpTool> getTools() {
-        return services.stream()
-                .flatMap(service -> service.getTools().stream())
-                .collect(Collectors.toList());
+        return tools;
+    }
+
+    /**
+     * The tool combined under a name, or null.
+     */
+    public McpTool getTool(String name) {
+        return toolIndex.get(name);
+    }
+
+    public List<McpService> getServices() {
+        return services;
     }
 
     @Override
     public String getModule() {
-        return "root";
+        return MODULE;
     }
 
     @Override
     public List<AsyncPromptSpecification> getPromptSpecifications() {
-        return services.stream()
-                .flatMap(service -> service.getPromptSpecifications().stream())
-                .collect(Collectors.toList());
+        return prompts;
     }
 
     @Override
     public List<AsyncResourceSpecification> getResourceSpecifications() {
-        return services.stream()
-                .flatMap(service -> service.getResourceSpecifications().stream())
-                .collect(Collectors.toList());
+        return resources;
     }
 
     @Override
     public List<AsyncResourceTemplateSpecification> getResourceTemplateSpecifications() {
-        return services.stream()
-                .flatMap(service -> service.getResourceTemplateSpecifications().stream())
-                .collect(Collectors.toList());
+        return templates;
+    }
+
+    /**
+     * Warm up every combined module.
+     */
+    @Override
+    public CompletableFuture<Void> warmup() {
+        return CompletableFuture.allOf(services.stream().map(McpService::warmup).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Names offered by a single module, which are combined as they are.
+     */
+    private static Set<String> reserved(Map<String, Integer> counts) {
+        Set<String> names = new HashSet<>();
+        counts.forEach((name, count) -> {
+            if (count == 1) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * {module}_{name}, numbered if another module's name already takes it.
+     */
+    private static String qualify(String kind, String module, String name, Set<String> taken) {
+        String qualified = module + NAMESPACE_SEPARATOR + name;
+        if (taken.add(qualified)) {
+            return qualified;
+        }
+        int suffix = 2;
+        while (!taken.add(qualified + NAMESPACE_SEPARATOR + suffix)) {
+            suffix++;
+        }
+        debug("!!!", kind, qualified, "is already taken, combined as", qualified + NAMESPACE_SEPARATOR + suffix);
+        return qualified + NAMESPACE_SEPARATOR + suffix;
+    }
+
+    private static AsyncResourceTemplateSpecification renameTemplate(AsyncResourceTemplateSpecification spec, String name) {
+        McpSchema.ResourceTemplate template = spec.resourceTemplate();
+        McpSchema.ResourceTemplate renamed = new McpSchema.ResourceTemplate(template.uriTemplate(), name, template.title(),
+                template.description(), template.mimeType(), template.annotations(), template.meta());
+        return new AsyncResourceTemplateSpecification(renamed, spec.readHandler());
+    }
+
+    private static AsyncPromptSpecification renamePrompt(AsyncPromptSpecification spec, String name) {
+        McpSchema.Prompt prompt = spec.prompt();
+        McpSchema.Prompt renamed = new McpSchema.Prompt(name, prompt.title(), prompt.description(), prompt.arguments(), prompt.meta());
+        String original = prompt.name();
+        return new AsyncPromptSpecification(renamed, (exchange, request) -> spec.promptHandler().apply(exchange,
+                new McpSchema.GetPromptRequest(original, request.arguments(), request.meta())));
+    }
+
+    /**
+     * A module's tool exposed under a qualified name. Calls are handed to the
+     * tool with its own name.
+     */
+    private static final class NamespacedTool implements McpTool {
+
+        private final McpTool delegate;
+        private final String originalName;
+        private final McpSchema.Tool tool;
+        private final McpServerFeatures.AsyncToolSpecification specification;
+
+        NamespacedTool(McpTool delegate, String name) {
+            this.delegate = delegate;
+            McpServerFeatures.AsyncToolSpecification original = delegate.getToolSpecification();
+            McpSchema.Tool source = original.tool();
+            this.originalName = source.name();
+            this.tool = new McpSchema.Tool(name, source.title(), source.description(), source.inputSchema(),
+                    source.outputSchema(), source.annotations(), source.meta());
+            this.specification = McpServerFeatures.AsyncToolSpecification.builder()
+                    .tool(tool)
+                    .callHandler((exchange, request) -> original.callHandler().apply(exchange, unqualify(request)))
+                    .build();
+        }
+
+        private CallToolRequest unqualify(CallToolRequest request) {
+            return new CallToolRequest(originalName, request.arguments(), request.meta());
+        }
+
+        @Override
+        public McpSchema.Tool getTool() {
+            return tool;
+        }
+
+        @Override
+        public McpServerFeatures.AsyncToolSpecification getToolSpecification() {
+            return specification;
+        }
+
+        @Override
+        public String getModule() {
+            return delegate.getModule();
+        }
+
+        @Override
+        public List<AsyncPromptSpecification> getPromptSpecifications() {
+            return delegate.getPromptSpecifications();
+        }
+
+        @Override
+        public CompletableFuture<CallToolResult> call(McpAsyncServerExchange exchange, CallToolRequest request) {
+            return delegate.call(exchange, unqualify(request));
+        }
+
+        @Override
+        public String getName() {
+            return tool.name();
+        }
+
+        @Override
+        public List<AsyncResourceSpecification> getResourceSpecifications() {
+            return delegate.getResourceSpecifications();
+        }
+
+        @Override
+        public List<AsyncResourceTemplateSpecification> getResourceTemplateSpecifications() {
+            return delegate.getResourceTemplateSpecifications();
+        }
+
+        @Override
+        public long getTimeoutMs() {
+            return delegate.getTimeoutMs();
+        }
     }
-    
 }
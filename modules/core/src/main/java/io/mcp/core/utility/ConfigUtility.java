@@ -14,4 +14,17 @@ public class ConfigUtility {
         return value;
     }
 
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            Utility.debug("Invalid integer for " + key + ": " + value + ", using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
 }
@@ -22,14 +22,23 @@ public class JsonSchemaUtility {
 
 
     public static String loadJsonSchema(String path) throws IOException {
+        return loadJsonSchema(path, JsonSchemaUtility.class.getClassLoader());
+    }
 
-        //load resource from classpath - ensure path starts with "/"
-        String resourcePath = path.startsWith("/") ? path : "/" + path;
-        InputStream inputStream = JsonSchemaUtility.class.getResourceAsStream(resourcePath);
-        if (inputStream == null) {
-            return null;
+    /**
+     * Load a schema through the given class loader, e.g. the one of a module
+     * jar loaded at runtime, whose resources the core's loader cannot see.
+     */
+    public static String loadJsonSchema(String path, ClassLoader classLoader) throws IOException {
+
+        //class loader resource paths have no leading "/"
+        String resourcePath = path.startsWith("/") ? path.substring(1) : path;
+        try (InputStream inputStream = classLoader.getResourceAsStream(resourcePath)) {
+            if (inputStream == null) {
+                return null;
+            }
+            return new String(inputStream.readAllBytes());
         }
-        return new String(inputStream.readAllBytes());
     }
 
     public static JsonNode toJsonNode(String jsonString) throws IOException {
@@ -76,6 +85,15 @@ public class JsonSchemaUtility {
     }
 
 
+    //given a tool json node, return its optional timeoutMs (0 when absent)
+    public static long getTimeoutMs(JsonNode jsonNode) {
+        if (jsonNode == null) {
+            return 0;
+        }
+        JsonNode timeout = jsonNode.get("timeoutMs");
+        return timeout != null && timeout.canConvertToLong() ? Math.max(0, timeout.asLong()) : 0;
+    }
+
     public static List<McpServerFeatures.AsyncPromptSpecification> getPrompts(JsonNode jsonNode) throws IOException {
         List<McpServerFeatures.AsyncPromptSpecification> promptSpecifications = new ArrayList<>();
 
@@ -1,81 +1,239 @@
 package io.mcp.core.utility;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+import io.mcp.core.protocol.McpModule;
 import io.mcp.core.protocol.McpService;
 import io.mcp.core.server.StreamableServer;
 
+/**
+ * Registry of the McpServices this process serves.
+ *
+ * Services found by ServiceLoader are discovered once, on first use. A
+ * provider class annotated with {@link McpModule} is only instantiated when
+ * its service is first asked for; others are instantiated at discovery to
+ * learn their module name. The registry is an immutable snapshot published
+ * through an AtomicReference: readers never lock, and
+ * {@link #registerService} / {@link #unregisterService} publish an updated
+ * copy with a compare-and-set.
+ */
 public class ServiceUtility {
 
-    private static Map<String, McpService> serviceMap = new HashMap<>();
-    private static List<McpService> serviceList = null;
-    private static Map<String, StreamableServer> serverMap = new HashMap<>();
-    private static List<McpService> registeredServiceList = null;
+    /**
+     * A module name and its service, created at most once. The first caller
+     * instantiates it; concurrent callers wait for that instance.
+     */
+    private static final class Entry {
 
-    public static List<McpService> getRegisteredServices() {
-        init();
-        return serviceList;
-    }
+        final String module;
+        private final Supplier<McpService> factory;
+        private final AtomicReference<CompletableFuture<McpService>> service = new AtomicReference<>();
 
-    public static McpService getService(String module) {
-        init();
-        return serviceMap.get(module);
-    }
+        Entry(String module, Supplier<McpService> factory) {
+            this.module = module;
+            this.factory = factory;
+        }
 
-    public static void registerService(McpService service) {
+        Entry(McpService service) {
+            this.module = service.getModule();
+            this.factory = null;
+            this.service.set(CompletableFuture.completedFuture(service));
+        }
 
-        if(registeredServiceList == null) {
-            registeredServiceList = new ArrayList<>();
+        McpService get() {
+            CompletableFuture<McpService> current = service.get();
+            if (current == null) {
+                CompletableFuture<McpService> created = new CompletableFuture<>();
+                if (service.compareAndSet(null, created)) {
+                    return instantiate(created);
+                }
+                current = service.get();
+            }
+            return current.join();
         }
 
-        registeredServiceList.add(service);
-        serviceMap.put(service.getModule(), service);
-    }
+        private McpService instantiate(CompletableFuture<McpService> created) {
+            Utility.debug("Instantiating MCP Service for " + module);
+            try {
+                McpService instance = factory.get();
+                // Its routes were made from the annotation, so the service must agree
+                if (!module.equals(instance.getModule())) {
+                    throw new IllegalStateException("@McpModule(\"" + module + "\") on " + instance.getClass().getName()
+                            + " does not match its module " + instance.getModule());
+                }
+                created.complete(instance);
+                return instance;
+            } catch (RuntimeException | Error e) {
+                // Let the next caller try again
+                service.set(null);
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
 
-    public static StreamableServer getServer(String module){
+        boolean holds(McpService instance) {
+            CompletableFuture<McpService> current = service.get();
+            return current != null && current.getNow(null) == instance;
+        }
+    }
 
-        init();
+    private record Registry(List<Entry> entries, Map<String, Entry> byModule) {
 
-        StreamableServer mcpServer = serverMap.get(module);
+        static Registry of(List<Entry> entries) {
+            Map<String, Entry> byModule = new HashMap<>();
+            for (Entry entry : entries) {
+                byModule.put(entry.module, entry);
+            }
+            return new Registry(List.copyOf(entries), Map.copyOf(byModule));
+        }
 
-        if(mcpServer == null) {
-            Utility.debug("Making new MCP Server for " + module);
-            McpService service = getService(module);
-            mcpServer = new StreamableServer();
-            mcpServer.initialize(service);
+        Registry with(McpService service) {
+            Entry existing = byModule.get(service.getModule());
+            if (existing != null && existing.holds(service)) {
+                return this;
+            }
+            List<Entry> updated = new ArrayList<>(entries);
+            if (existing != null) {
+                updated.set(updated.indexOf(existing), new Entry(service));
+            } else {
+                updated.add(new Entry(service));
+            }
+            return of(updated);
+        }
 
-            serverMap.put(module, mcpServer);
+        Registry without(String module) {
+            List<Entry> updated = new ArrayList<>(entries);
+            updated.remove(byModule.get(module));
+            return of(updated);
         }
+    }
+
+    /**
+     * The server made for a service, completed by the thread that made it.
+     */
+    private record ServerEntry(McpService service, CompletableFuture<StreamableServer> server) {
+    }
+
+    /**
+     * Services on the classpath, discovered once by class initialization.
+     */
+    private static final class Discovered {
+
+        static final List<Entry> ENTRIES = load();
 
+        private static List<Entry> load() {
+            ServiceLoader<McpService> featureLoader = ServiceLoader.load(McpService.class);
+            Utility.debug("Auto Registered MCP Services", featureLoader);
 
+            List<Entry> list = new ArrayList<>();
+            featureLoader.stream().forEach(provider -> {
+                Utility.debug(provider.type().getName());
+                McpModule module = provider.type().getAnnotation(McpModule.class);
+                list.add(module != null ? new Entry(module.value(), provider::get) : new Entry(provider.get()));
+            });
 
-        return mcpServer;
+            Utility.debug("loaded services count", list.size());
+            return list;
+        }
     }
 
-    private static void init() {
+    private static final AtomicReference<Registry> registry = new AtomicReference<>();
+    private static final Map<String, ServerEntry> serverMap = new ConcurrentHashMap<>();
 
-        if(serviceList != null) {
-            return;
+    /**
+     * Every registered service, instantiating the ones not created yet.
+     */
+    public static List<McpService> getRegisteredServices() {
+        List<McpService> services = new ArrayList<>();
+        for (Entry entry : snapshot().entries()) {
+            services.add(entry.get());
         }
+        return services;
+    }
 
-        ServiceLoader<McpService> featureLoader = ServiceLoader.load(McpService.class);
-        Utility.debug("Auto Registered MCP Services", featureLoader);
+    /**
+     * Names of the registered modules, without instantiating their services.
+     */
+    public static List<String> getRegisteredModules() {
+        List<String> modules = new ArrayList<>();
+        for (Entry entry : snapshot().entries()) {
+            modules.add(entry.module);
+        }
+        return modules;
+    }
 
-        List<McpService> list = new ArrayList<>();
+    public static McpService getService(String module) {
+        Entry entry = snapshot().byModule().get(module);
+        return entry != null ? entry.get() : null;
+    }
 
-        int count = 0;
+    /**
+     * Add a service, replacing the one registered for the same module.
+     */
+    public static void registerService(McpService service) {
+        snapshot();
+        registry.updateAndGet(current -> current.with(service));
+    }
 
-        for (McpService feature : featureLoader) {
-            Utility.debug(feature.getClass().getName());
-            list.add(feature);
-            serviceMap.put(feature.getModule(), feature);
-            count++;
+    /**
+     * Remove the service of a module.
+     *
+     * @return whether a service was registered for it
+     */
+    public static boolean unregisterService(String module) {
+        snapshot();
+        Registry previous = registry.getAndUpdate(current -> current.byModule().containsKey(module) ? current.without(module) : current);
+        serverMap.remove(module);
+        return previous.byModule().containsKey(module);
+    }
+
+    /**
+     * The StreamableServer of a module, created once per registered service.
+     * Null if no service is registered for the module.
+     */
+    public static StreamableServer getServer(String module) {
+        McpService service = getService(module);
+        if (service == null) {
+            return null;
         }
 
-        Utility.debug("loaded services count", count);
+        ServerEntry entry = serverMap.get(module);
+        if (entry == null || entry.service() != service) {
+            // Only the entry is published under the map's lock; initialize runs outside it
+            ServerEntry created = new ServerEntry(service, new CompletableFuture<>());
+            entry = serverMap.compute(module, (key, existing) ->
+                    existing != null && existing.service() == service ? existing : created);
+            if (entry == created) {
+                initialize(module, created);
+            }
+        }
+        return entry.server().join();
+    }
 
-        serviceList = list;
+    private static void initialize(String module, ServerEntry entry) {
+        Utility.debug("Making new MCP Server for " + module);
+        try {
+            StreamableServer mcpServer = new StreamableServer();
+            mcpServer.initialize(entry.service());
+            entry.server().complete(mcpServer);
+        } catch (RuntimeException | Error e) {
+            // Let the next request try again
+            serverMap.remove(module, entry);
+            entry.server().completeExceptionally(e);
+            throw e;
+        }
+    }
 
+    private static Registry snapshot() {
+        Registry current = registry.get();
+        if (current != null) {
+            return current;
+        }
+        registry.compareAndSet(null, Registry.of(Discovered.ENTRIES));
+        return registry.get();
     }
 }
-
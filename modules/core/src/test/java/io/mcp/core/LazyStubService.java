@@ -0,0 +1,26 @@
+package io.mcp.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.mcp.core.protocol.McpModule;
+
+/**
+ * Discovered through ServiceLoader in the core tests; counts its instances.
+ */
+@McpModule("lazy")
+public class LazyStubService extends StubService {
+
+    public static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public LazyStubService() {
+        super("lazy");
+        tool("echo");
+        INSTANCES.incrementAndGet();
+        try {
+            // Slow enough for concurrent first requests to overlap
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
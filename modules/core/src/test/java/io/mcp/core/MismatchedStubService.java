@@ -0,0 +1,15 @@
+package io.mcp.core;
+
+import io.mcp.core.protocol.McpModule;
+
+/**
+ * Discovered through ServiceLoader in the core tests; its annotation names
+ * a different module than getModule().
+ */
+@McpModule("mismatched")
+public class MismatchedStubService extends StubService {
+
+    public MismatchedStubService() {
+        super("other");
+    }
+}
@@ -0,0 +1,152 @@
+package io.mcp.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+import io.mcp.core.protocol.McpService;
+import io.mcp.core.protocol.McpTool;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpServerFeatures.AsyncPromptSpecification;
+import io.modelcontextprotocol.server.McpServerFeatures.AsyncResourceSpecification;
+import io.modelcontextprotocol.server.McpServerFeatures.AsyncResourceTemplateSpecification;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.CallToolRequest;
+import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
+import io.modelcontextprotocol.spec.McpSchema.Implementation;
+import reactor.core.publisher.Mono;
+
+/**
+ * McpService built in code for tests: named tools whose calls are answered by
+ * a function, and optional prompts, resources and templates.
+ */
+public class StubService implements McpService {
+
+    private final String module;
+    private final List<McpTool> tools = new ArrayList<>();
+    private final List<AsyncPromptSpecification> prompts = new ArrayList<>();
+    private final List<AsyncResourceSpecification> resources = new ArrayList<>();
+    private final List<AsyncResourceTemplateSpecification> templates = new ArrayList<>();
+
+    public StubService(String module) {
+        this.module = module;
+    }
+
+    /**
+     * Add a tool that answers with its own name.
+     */
+    public StubService tool(String name) {
+        return tool(name, (exchange, request) -> CompletableFuture.completedFuture(
+                CallToolResult.builder().addTextContent(module + ":" + request.name()).build()));
+    }
+
+    public StubService tool(String name, BiFunction<McpAsyncServerExchange, CallToolRequest, CompletableFuture<CallToolResult>> handler) {
+        tools.add(new StubTool(module, name, handler));
+        return this;
+    }
+
+    public StubService prompt(String name) {
+        McpSchema.Prompt prompt = new McpSchema.Prompt(name, module + " prompt", List.of());
+        prompts.add(new AsyncPromptSpecification(prompt, (exchange, request) -> Mono.just(
+                new McpSchema.GetPromptResult(module, List.of()))));
+        return this;
+    }
+
+    public StubService resource(String uri) {
+        McpSchema.Resource resource = McpSchema.Resource.builder().uri(uri).name(module + " resource").build();
+        resources.add(new AsyncResourceSpecification(resource, (exchange, request) -> Mono.just(
+                new McpSchema.ReadResourceResult(List.of(new McpSchema.TextResourceContents(uri, "text/plain", module))))));
+        return this;
+    }
+
+    public StubService template(String name) {
+        McpSchema.ResourceTemplate template = new McpSchema.ResourceTemplate("stub://" + module + "/{id}", name, module + " template", "text/plain", null);
+        templates.add(new AsyncResourceTemplateSpecification(template, (exchange, request) -> Mono.just(
+                new McpSchema.ReadResourceResult(List.of()))));
+        return this;
+    }
+
+    @Override
+    public Implementation getServerInfo() {
+        return new Implementation("stub-" + module, "1.0.0");
+    }
+
+    @Override
+    public List<McpTool> getTools() {
+        return tools;
+    }
+
+    @Override
+    public String getModule() {
+        return module;
+    }
+
+    @Override
+    public List<AsyncPromptSpecification> getPromptSpecifications() {
+        return prompts;
+    }
+
+    @Override
+    public List<AsyncResourceSpecification> getResourceSpecifications() {
+        return resources;
+    }
+
+    @Override
+    public List<AsyncResourceTemplateSpecification> getResourceTemplateSpecifications() {
+        return templates;
+    }
+
+    private record StubTool(String module, String name, BiFunction<McpAsyncServerExchange, CallToolRequest, CompletableFuture<CallToolResult>> handler)
+            implements McpTool {
+
+        @Override
+        public McpSchema.Tool getTool() {
+            return McpSchema.Tool.builder()
+                    .name(name)
+                    .description(module + " " + name)
+                    .inputSchema(new McpSchema.JsonSchema("object", Map.of(), List.of(), null, null, null))
+                    .build();
+        }
+
+        @Override
+        public McpServerFeatures.AsyncToolSpecification getToolSpecification() {
+            return McpServerFeatures.AsyncToolSpecification.builder()
+                    .tool(getTool())
+                    .callHandler((exchange, request) -> Mono.fromFuture(call(exchange, request)))
+                    .build();
+        }
+
+        @Override
+        public String getModule() {
+            return module;
+        }
+
+        @Override
+        public List<AsyncPromptSpecification> getPromptSpecifications() {
+            return List.of();
+        }
+
+        @Override
+        public CompletableFuture<CallToolResult> call(McpAsyncServerExchange exchange, CallToolRequest request) {
+            return handler.apply(exchange, request);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<AsyncResourceSpecification> getResourceSpecifications() {
+            return List.of();
+        }
+
+        @Override
+        public List<AsyncResourceTemplateSpecification> getResourceTemplateSpecifications() {
+            return List.of();
+        }
+    }
+}
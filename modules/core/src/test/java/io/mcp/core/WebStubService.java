@@ -0,0 +1,27 @@
+package io.mcp.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.modelcontextprotocol.spec.McpSchema;
+
+/**
+ * Module "web", discovered through META-INF/services, that the HTTP server
+ * tests call: "echo" answers with its name, "wait" after arguments.ms
+ * milliseconds and "broken" with no result.
+ */
+public class WebStubService extends StubService {
+
+    public WebStubService() {
+        super("web");
+        tool("echo");
+        tool("wait", (exchange, request) -> {
+            long ms = ((Number) request.arguments().get("ms")).longValue();
+            return CompletableFuture.supplyAsync(
+                    () -> McpSchema.CallToolResult.builder().addTextContent("waited " + ms).build(),
+                    CompletableFuture.delayedExecutor(ms, TimeUnit.MILLISECONDS));
+        });
+        // Completes without a result, so building its response fails
+        tool("broken", (exchange, request) -> CompletableFuture.completedFuture(null));
+    }
+}
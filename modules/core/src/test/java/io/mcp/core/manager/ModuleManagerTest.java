@@ -0,0 +1,199 @@
+package io.mcp.core.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.mcp.core.protocol.McpService;
+import io.mcp.core.server.McpHttpServer;
+import io.mcp.testmodule.ReloadableService;
+import io.modelcontextprotocol.spec.McpSchema;
+
+class ModuleManagerTest {
+
+    private static final int PORT = 18193;
+    private static final String MODULE = "reloadable";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLoadDeploysServicesFromTheirOwnClassLoader() throws Exception {
+        RecordingHost host = new RecordingHost();
+        ModuleManager manager = new ModuleManager(host);
+        Path jar = writeJar(dir.resolve("module.jar"), "1");
+
+        assertEquals(List.of(MODULE), manager.load(jar));
+        McpService service = host.deployed.get(MODULE);
+        assertNotNull(service);
+        assertNotSame(ReloadableService.class, service.getClass(), "The jar's copy of the class should be used");
+        assertEquals("1", callVersion(service));
+        manager.close();
+    }
+
+    @Test
+    void testReloadSwapsVersionAndClosesPreviousOnceDrained() throws Exception {
+        RecordingHost host = new RecordingHost();
+        ModuleManager manager = new ModuleManager(host);
+        Path jar = writeJar(dir.resolve("module.jar"), "1");
+        manager.load(jar);
+        McpService first = host.deployed.get(MODULE);
+
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        host.retirement = drained;
+        writeJar(jar, "2");
+        manager.load(jar);
+        McpService second = host.deployed.get(MODULE);
+        assertEquals("2", callVersion(second));
+        assertNotSame(first.getClass(), second.getClass());
+
+        // The previous version keeps its class loader until its calls drained
+        ClassLoader previous = first.getClass().getClassLoader();
+        assertNotNull(previous.getResource("reloadable.version"));
+        drained.complete(null);
+        assertNull(previous.getResource("reloadable.version"), "The replaced class loader should be closed");
+        manager.close();
+    }
+
+    @Test
+    void testUnloadUndeploys() throws Exception {
+        RecordingHost host = new RecordingHost();
+        ModuleManager manager = new ModuleManager(host);
+        Path jar = writeJar(dir.resolve("module.jar"), "1");
+        manager.load(jar);
+
+        assertTrue(manager.unload(jar));
+        assertEquals(List.of(MODULE), host.undeployed);
+        assertTrue(manager.getLoadedModules().isEmpty());
+        assertTrue(!manager.unload(jar));
+    }
+
+    @Test
+    void testServerPicksUpReplacedJar() throws Exception {
+        Path jar = writeJar(dir.resolve("module.jar"), "1");
+        System.setProperty("HTTP_PREFIX", "/");
+        System.setProperty("MODULE_DIR", dir.toString());
+        System.setProperty("COMBINED_ENDPOINT", "false");
+        System.setProperty("MODULE_LAZY_INIT", "true");
+        McpHttpServer server = new McpHttpServer(PORT);
+        try {
+            server.startStreamableServer();
+            assertEquals("1", callVersion());
+
+            // Replace the jar the way a deployment would: write aside, then move over it
+            Path next = writeJar(dir.resolve("module.jar.tmp"), "2");
+            Files.move(next, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            waitFor(() -> "2".equals(callVersion()));
+
+            Files.delete(jar);
+            waitFor(() -> status() == 404);
+        } finally {
+            server.stop();
+            System.clearProperty("HTTP_PREFIX");
+            System.clearProperty("MODULE_DIR");
+            System.clearProperty("COMBINED_ENDPOINT");
+            System.clearProperty("MODULE_LAZY_INIT");
+        }
+    }
+
+    /**
+     * A module jar holding ReloadableService and the given version.
+     */
+    private static Path writeJar(Path jar, String version) throws Exception {
+        String classFile = ReloadableService.class.getName().replace('.', '/') + ".class";
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out);
+                InputStream classBytes = ReloadableService.class.getClassLoader().getResourceAsStream(classFile)) {
+            jarOut.putNextEntry(new JarEntry("META-INF/services/" + McpService.class.getName()));
+            jarOut.write(ReloadableService.class.getName().getBytes(StandardCharsets.UTF_8));
+            jarOut.putNextEntry(new JarEntry(classFile));
+            classBytes.transferTo(jarOut);
+            jarOut.putNextEntry(new JarEntry("reloadable.version"));
+            jarOut.write(version.getBytes(StandardCharsets.UTF_8));
+        }
+        return jar;
+    }
+
+    private static String callVersion(McpService service) throws Exception {
+        McpSchema.CallToolResult result = service.getTools().get(0)
+                .call(null, new McpSchema.CallToolRequest("version", Map.of())).get();
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    private static String callVersion() {
+        HttpResponse<String> response = post("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"version\",\"arguments\":{}}}");
+        if (response.statusCode() != 200) {
+            return "status " + response.statusCode();
+        }
+        int text = response.body().indexOf("\"text\":\"");
+        return text < 0 ? response.body() : response.body().substring(text + 8, response.body().indexOf('"', text + 8));
+    }
+
+    private static int status() {
+        return post("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}").statusCode();
+    }
+
+    private static HttpResponse<String> post(String body) {
+        try {
+            return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/" + MODULE))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the module directory change");
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Host that records what is deployed; retirements complete with the given future.
+     */
+    private static final class RecordingHost implements ModuleManager.ModuleHost {
+
+        final Map<String, McpService> deployed = new ConcurrentHashMap<>();
+        final List<String> undeployed = new CopyOnWriteArrayList<>();
+        volatile CompletableFuture<Void> retirement = CompletableFuture.completedFuture(null);
+
+        @Override
+        public CompletableFuture<Void> deploy(McpService service) {
+            deployed.put(service.getModule(), service);
+            return retirement;
+        }
+
+        @Override
+        public CompletableFuture<Void> undeploy(String module) {
+            deployed.remove(module);
+            undeployed.add(module);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
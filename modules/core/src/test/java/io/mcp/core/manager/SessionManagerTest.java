@@ -0,0 +1,108 @@
+package io.mcp.core.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class SessionManagerTest {
+
+    private static final class State {
+        final AtomicBoolean busy = new AtomicBoolean();
+    }
+
+    @Test
+    void testCapacityEvictsLeastRecentlyUsed() throws Exception {
+        List<String> removed = new ArrayList<>();
+        SessionManager<State> sessions = new SessionManager<>("test", 2, 60000, State::new, (id, state) -> removed.add(id));
+        try {
+            sessions.getOrCreate("old");
+            Thread.sleep(2);
+            sessions.getOrCreate("new");
+            Thread.sleep(2);
+            // The older session is in active use, the newer one idle
+            assertTrue(sessions.touch("old"));
+
+            sessions.getOrCreate("third");
+
+            assertEquals(List.of("new"), removed, "The least recently used session should be evicted");
+            assertTrue(sessions.contains("old"));
+            assertTrue(sessions.contains("third"));
+            assertEquals(1L, sessions.getMetrics().get("evicted"));
+        } finally {
+            sessions.close();
+        }
+    }
+
+    @Test
+    void testSessionInUseIsNotEvicted() throws Exception {
+        List<String> removed = new ArrayList<>();
+        SessionManager<State> sessions = new SessionManager<>("test", 2, 60000, State::new, (id, state) -> removed.add(id),
+                state -> state.busy.get());
+        try {
+            sessions.getOrCreate("busy").busy.set(true);
+            Thread.sleep(2);
+            sessions.getOrCreate("idle");
+
+            sessions.getOrCreate("third");
+            assertEquals(List.of("idle"), removed, "A session with calls in flight should be skipped");
+
+            sessions.getOrCreate("third").busy.set(true);
+            assertThrows(SessionLimitException.class, () -> sessions.getOrCreate("fourth"),
+                    "With every session busy a new one should be refused");
+            assertEquals(2, sessions.size());
+            assertTrue(sessions.contains("busy"));
+            assertFalse(sessions.contains("fourth"));
+
+            sessions.getOrCreate("busy").busy.set(false);
+            sessions.getOrCreate("fourth");
+            assertEquals(List.of("idle", "busy"), removed, "A session that frees up can be evicted again");
+        } finally {
+            sessions.close();
+        }
+    }
+
+    @Test
+    void testEvictionFollowsTouchOrder() {
+        List<String> removed = new ArrayList<>();
+        SessionManager<State> sessions = new SessionManager<>("test", 3, 60000, State::new, (id, state) -> removed.add(id));
+        try {
+            sessions.getOrCreate("a");
+            sessions.getOrCreate("b");
+            sessions.getOrCreate("c");
+            sessions.touch("a");
+            sessions.touch("b");
+
+            sessions.getOrCreate("d");
+            sessions.getOrCreate("e");
+            sessions.touch("b");
+            sessions.getOrCreate("f");
+
+            assertEquals(List.of("c", "a", "d"), removed);
+            assertEquals(3, sessions.size());
+        } finally {
+            sessions.close();
+        }
+    }
+
+    @Test
+    void testRemoveNotifiesListener() {
+        List<String> removed = new ArrayList<>();
+        SessionManager<State> sessions = new SessionManager<>("test", 4, 60000, State::new, (id, state) -> removed.add(id));
+        try {
+            sessions.getOrCreate("a");
+            assertTrue(sessions.remove("a"));
+            assertFalse(sessions.remove("a"));
+            assertFalse(sessions.contains("a"));
+            assertEquals(List.of("a"), removed);
+        } finally {
+            sessions.close();
+        }
+    }
+}
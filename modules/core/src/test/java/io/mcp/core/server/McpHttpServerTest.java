@@ -0,0 +1,321 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mcp.core.LazyStubService;
+
+class McpHttpServerTest {
+
+    private static final int PORT = 18192;
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+            + "{\"protocolVersion\":\"2025-06-18\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1\"}}}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private McpHttpServer server;
+    private final List<String> properties = new ArrayList<>(List.of("HTTP_PREFIX", "MODULE_LAZY_INIT", "MODULE_PREWARM", "COMBINED_ENDPOINT"));
+
+    /**
+     * Start a server with the given configuration (key, value, ...) serving
+     * the discovered test modules, among them "web" (WebStubService). The
+     * configuration stays set for the test, since modules are initialized on
+     * first request.
+     */
+    private void start(String... config) throws Exception {
+        System.setProperty("HTTP_PREFIX", "/");
+        System.setProperty("MODULE_LAZY_INIT", "true");
+        System.setProperty("MODULE_PREWARM", "false");
+        System.setProperty("COMBINED_ENDPOINT", "false");
+        for (int i = 0; i < config.length; i += 2) {
+            System.setProperty(config[i], config[i + 1]);
+            properties.add(config[i]);
+        }
+        server = new McpHttpServer(PORT);
+        server.startServer();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+        properties.forEach(System::clearProperty);
+    }
+
+    @Test
+    void testPendingModuleInitializedOnceOnFirstRequests() throws Exception {
+        start();
+        assertEquals(0, LazyStubService.INSTANCES.get(), "A pending module should not be instantiated before its first request");
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(client.sendAsync(post("/lazy", INITIALIZE), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> result = response.get();
+            assertEquals(200, result.statusCode(), result.body());
+            assertTrue(result.body().contains("stub-lazy"), result.body());
+        }
+        assertEquals(1, LazyStubService.INSTANCES.get());
+    }
+
+    @Test
+    void testModuleNotMatchingItsAnnotationIsRefused() throws Exception {
+        start();
+        HttpResponse<String> response = send(post("/mismatched", INITIALIZE));
+        assertEquals(500, response.statusCode());
+        assertTrue(response.body().contains("does not match its module other"), response.body());
+
+        // The other modules are still served
+        assertEquals(200, send(post("/lazy", INITIALIZE)).statusCode());
+    }
+
+    @Test
+    void testRequestsOverInFlightCapGet503() throws Exception {
+        start("HTTP_MAX_IN_FLIGHT", "1");
+
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(post("/web", callRequest(1, "wait", "{\"ms\":1000}")),
+                HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(300);
+        HttpResponse<String> busy = send(post("/web", callRequest(2, "echo", "{}")));
+        assertEquals(503, busy.statusCode(), busy.body());
+        assertEquals("1", busy.headers().firstValue("Retry-After").orElse(null));
+
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+        // The slot is released once the slow call is answered
+        HttpResponse<String> after = send(post("/web", callRequest(3, "echo", "{}")));
+        assertEquals(200, after.statusCode(), after.body());
+        assertTrue(after.body().contains("web:echo"), after.body());
+    }
+
+    @Test
+    void testModulePathsMatchWholeSegments() throws Exception {
+        start();
+        assertEquals(200, send(post("/web", INITIALIZE)).statusCode());
+        assertEquals(200, send(post("/web/mcp", INITIALIZE)).statusCode());
+        assertEquals(404, send(post("/webx", INITIALIZE)).statusCode());
+        assertEquals(404, send(post("/we", INITIALIZE)).statusCode());
+    }
+
+    @Test
+    void testDeleteEndsSession() throws Exception {
+        start();
+        String sessionId = send(post("/web", INITIALIZE)).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+        assertEquals(204, send(delete("/web", sessionId)).statusCode());
+        assertEquals(404, send(delete("/web", sessionId)).statusCode(), "A deleted session should be gone");
+        assertEquals(400, send(request("/web").DELETE().build()).statusCode());
+    }
+
+    @Test
+    void testLeastRecentlyUsedSessionIsEvicted() throws Exception {
+        start("SESSION_MAX_COUNT", "2");
+        String first = send(post("/web", INITIALIZE)).headers().firstValue("Mcp-Session-Id").orElseThrow();
+        String second = send(post("/web", INITIALIZE)).headers().firstValue("Mcp-Session-Id").orElseThrow();
+        // Using the first session makes the second the least recently used
+        assertEquals(200, send(post("/web", callRequest(2, "echo", "{}"), first)).statusCode());
+        String third = send(post("/web", INITIALIZE)).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+        assertEquals(404, send(delete("/web", second)).statusCode(), "The least recently used session should be evicted");
+        assertEquals(204, send(delete("/web", first)).statusCode());
+        assertEquals(204, send(delete("/web", third)).statusCode());
+    }
+
+    @Test
+    void testUnknownSessionGets404() throws Exception {
+        start();
+        String unknown = "made-up \"session\" \\ id";
+        HttpResponse<String> response = send(post("/web", callRequest(1, "echo", "{}"), unknown));
+        assertEquals(404, response.statusCode());
+        assertEquals("Session not found: " + unknown, new ObjectMapper().readTree(response.body()).path("error").asText());
+        assertEquals(404, send(post("/web", INITIALIZE, unknown)).statusCode(), "The client's id should not become a session");
+    }
+
+    @Test
+    void testNewSessionIsRefusedWhenAllAreBusy() throws Exception {
+        start("SESSION_MAX_COUNT", "1");
+        String sessionId = send(post("/web", INITIALIZE)).headers().firstValue("Mcp-Session-Id").orElseThrow();
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(post("/web", callRequest(2, "wait", "{\"ms\":1000}"), sessionId),
+                HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(300);
+
+        HttpResponse<String> refused = send(post("/web", INITIALIZE));
+        assertEquals(503, refused.statusCode(), refused.body());
+        assertEquals("1", refused.headers().firstValue("Retry-After").orElse(null));
+
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).statusCode());
+        // Once idle, the session can make room for a new one
+        assertEquals(200, send(post("/web", INITIALIZE)).statusCode());
+        assertEquals(404, send(delete("/web", sessionId)).statusCode());
+    }
+
+    @Test
+    void testSseReconnectReplaysMissedEvents() throws Exception {
+        start();
+        HttpResponse<InputStream> first = client.send(sse("/web/sse").build(), HttpResponse.BodyHandlers.ofInputStream());
+        BufferedReader events = reader(first);
+        String messages = readEvent(events).get("data");
+        assertEquals(202, send(HttpRequest.newBuilder(URI.create(messages)).POST(HttpRequest.BodyPublishers.ofString(ping(1))).build()).statusCode());
+        String seen = readEvent(events).get("id");
+        assertEquals(202, send(HttpRequest.newBuilder(URI.create(messages)).POST(HttpRequest.BodyPublishers.ofString(ping(2))).build()).statusCode());
+        Map<String, String> missed = readEvent(events);
+        first.body().close();
+
+        HttpResponse<InputStream> resumed = client.send(sse("/web/sse").header("Last-Event-ID", seen).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            BufferedReader replay = reader(resumed);
+            assertEquals(messages, readEvent(replay).get("data"), "The resumed stream should keep its session");
+            Map<String, String> replayed = readEvent(replay);
+            assertEquals(missed.get("id"), replayed.get("id"));
+            assertTrue(replayed.get("data").contains("\"id\":2"), replayed.toString());
+        } finally {
+            resumed.body().close();
+        }
+    }
+
+    @Test
+    void testFailedRequestIsAnsweredOnItsSseStream() throws Exception {
+        start();
+        HttpResponse<InputStream> response = client.send(request("/web").setHeader("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(callRequest(7, "broken", "{}"))).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        JsonNode answer = new ObjectMapper().readTree(readEvent(reader(response)).get("data"));
+        assertEquals(7, answer.path("id").asInt(), answer.toString());
+        assertEquals(-32603, answer.path("error").path("code").asInt(), answer.toString());
+
+        HttpResponse<String> json = send(post("/web", callRequest(8, "broken", "{}")));
+        assertEquals(200, json.statusCode());
+        assertEquals(8, new ObjectMapper().readTree(json.body()).path("id").asInt(), json.body());
+    }
+
+    @Test
+    void testBodiesOverTheLimitGet413() throws Exception {
+        start("HTTP_MAX_BODY_BYTES", "4096", "HTTP_BODY_BUFFER_BYTES", "1024");
+        // Over the pooled buffer but under the cap, with and without Content-Length
+        String fits = callRequest(1, "echo", "{\"padding\":\"" + "x".repeat(2000) + "\"}");
+        String tooLarge = callRequest(2, "echo", "{\"padding\":\"" + "x".repeat(8000) + "\"}");
+
+        assertEquals(200, send(post("/web", fits)).statusCode());
+        assertEquals(200, send(chunked("/web", fits)).statusCode());
+        assertEquals(413, send(post("/web", tooLarge)).statusCode());
+        assertEquals(413, send(chunked("/web", tooLarge)).statusCode());
+    }
+
+    @Test
+    void testCompressedListAndCallResults() throws Exception {
+        start("HTTP_COMPRESS_MIN_BYTES", "0");
+        String list = "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"tools/list\"}";
+        String plain = send(post("/web", list)).body();
+
+        // tools/list is spliced onto its precompressed tail; tools/call is compressed whole
+        for (String encoding : new String[] {"gzip", "deflate"}) {
+            HttpResponse<byte[]> compressed = client.send(request("/web").header("Accept-Encoding", encoding)
+                    .POST(HttpRequest.BodyPublishers.ofString(list)).build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(encoding, compressed.headers().firstValue("Content-Encoding").orElse(null));
+            assertEquals(plain, decode(compressed.body(), encoding));
+
+            HttpResponse<byte[]> call = client.send(request("/web").header("Accept-Encoding", encoding)
+                    .POST(HttpRequest.BodyPublishers.ofString(callRequest(6, "echo", "{}"))).build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertTrue(decode(call.body(), encoding).contains("web:echo"));
+        }
+    }
+
+    private static String decode(byte[] body, String encoding) throws Exception {
+        InputStream in = new ByteArrayInputStream(body);
+        try (InputStream decoded = "gzip".equals(encoding) ? new GZIPInputStream(in) : new InflaterInputStream(in)) {
+            return new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static HttpRequest chunked(String path, String body) {
+        // A stream publisher has no length, so the body is sent chunked
+        return request(path).POST(HttpRequest.BodyPublishers.ofInputStream(
+                () -> new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))).build();
+    }
+
+    private static HttpRequest.Builder sse(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path)).header("Accept", "text/event-stream").GET();
+    }
+
+    private static BufferedReader reader(HttpResponse<InputStream> response) {
+        assertEquals(200, response.statusCode());
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Fields of the next SSE event, skipping keepalive comments.
+     */
+    private static Map<String, String> readEvent(BufferedReader reader) throws Exception {
+        Map<String, String> fields = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (!fields.isEmpty()) {
+                    return fields;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                fields.merge(line.substring(0, colon), line.substring(colon + 1).trim(), (a, b) -> a + "\n" + b);
+            }
+        }
+        throw new AssertionError("SSE stream ended");
+    }
+
+    private static String ping(int id) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"ping\"}";
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest post(String path, String body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static HttpRequest post(String path, String body, String sessionId) {
+        return request(path).header("Mcp-Session-Id", sessionId).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static HttpRequest delete(String path, String sessionId) {
+        return request(path).header("Mcp-Session-Id", sessionId).DELETE().build();
+    }
+
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(10));
+    }
+
+    private static String callRequest(int id, String tool, String arguments) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\"" + tool
+                + "\",\"arguments\":" + arguments + "}}";
+    }
+}
@@ -0,0 +1,209 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mcp.core.StubService;
+import io.mcp.core.protocol.McpService;
+import io.mcp.core.service.CombinedService;
+import io.modelcontextprotocol.spec.McpSchema;
+
+class McpStdioServerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testContentLengthFraming() throws Exception {
+        String pretty = "{\n  \"jsonrpc\": \"2.0\",\r\n  \"id\": 2,\n  \"method\": \"ping\"\n}";
+        String large = padded(3, 5_000);
+        String input = framed(ping(1))
+                + "Content-Length: " + pretty.length() + "\r\nContent-Type: application/vscode-jsonrpc; charset=utf-8\r\n\r\n" + pretty
+                + framed(large)
+                + "content-length: " + ping(4).length() + "\n\n" + ping(4);
+
+        List<JsonNode> output = runWithSmallBuffer(McpStdioServer.Framing.CONTENT_LENGTH, input);
+
+        assertEquals(List.of(1, 2, 3, 4), ids(output), "Extra headers, embedded newlines, a body past the buffer and LF-only headers");
+    }
+
+    @Test
+    void testInvalidContentLengthIsAnsweredAndSkipped() throws Exception {
+        String input = "Content-Length: abc\r\n\r\n" + ping(1)
+                + framed(ping(2));
+
+        List<JsonNode> output = run(McpStdioServer.Framing.CONTENT_LENGTH, input);
+
+        assertEquals(2, output.size(), output.toString());
+        assertEquals(-32700, output.get(0).path("error").path("code").asInt());
+        assertTrue(output.get(0).path("id").isNull());
+        assertEquals(2, output.get(1).path("id").asInt(), "The message after the bad one should be served");
+    }
+
+    @Test
+    void testNegativeContentLengthIsNotReadAsHeaders() throws Exception {
+        String input = "Content-Length: -5\r\n\r\n" + ping(1) + "\r\n"
+                + framed(ping(2));
+
+        List<JsonNode> output = run(McpStdioServer.Framing.CONTENT_LENGTH, input);
+
+        assertEquals(2, output.size(), output.toString());
+        assertEquals(-32700, output.get(0).path("error").path("code").asInt());
+        assertEquals(2, output.get(1).path("id").asInt());
+    }
+
+    @Test
+    void testOverlongHeaderLineIsSkipped() throws Exception {
+        String input = "X-Padding: " + "x".repeat(20_000) + "\r\n\r\n"
+                + framed(ping(3));
+
+        // A small buffer, so the line is seen to grow past the header limit
+        List<JsonNode> output = runWithSmallBuffer(McpStdioServer.Framing.CONTENT_LENGTH, input);
+
+        assertEquals(2, output.size(), output.toString());
+        assertEquals(-32700, output.get(0).path("error").path("code").asInt());
+        assertEquals(3, output.get(1).path("id").asInt());
+    }
+
+    @Test
+    void testLineFraming() throws Exception {
+        String input = ping(1) + "\r\n"
+                + "\n  \r\n"
+                + padded(2, 5_000) + "\n"
+                + ping(3);
+
+        List<JsonNode> output = runWithSmallBuffer(McpStdioServer.Framing.LINE, input);
+
+        assertEquals(List.of(1, 2, 3), ids(output), "Each message once: CRLF, blank lines, a line past the buffer and an unterminated last line");
+    }
+
+    @Test
+    void testResponsesAreWrittenAsCallsComplete() throws Exception {
+        String input = callRequest(1, "wait", "{\"ms\":500}") + "\n"
+                + ping(2) + "\n";
+
+        List<JsonNode> output = run(McpStdioServer.Framing.LINE, input);
+
+        assertEquals(2, output.size(), output.toString());
+        assertEquals(2, output.get(0).path("id").asInt(), "The ping should not wait behind the slow call");
+        assertEquals(1, output.get(1).path("id").asInt());
+        assertEquals("waited 500", output.get(1).path("result").path("content").path(0).path("text").asText());
+    }
+
+    @Test
+    void testCombinedModulesKeepClashingToolsApart() throws Exception {
+        McpService combined = new CombinedService(List.of(
+                new StubService("x").tool("a"),
+                new StubService("y").tool("a")));
+        String input = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}\n"
+                + callRequest(2, "y_a", "{}") + "\n";
+
+        List<JsonNode> output = run(combined, McpStdioServer.Framing.LINE, input);
+
+        assertEquals(2, output.size(), output.toString());
+        JsonNode list = output.get(0).path("id").asInt() == 1 ? output.get(0) : output.get(1);
+        JsonNode call = list == output.get(0) ? output.get(1) : output.get(0);
+        Set<String> names = new HashSet<>();
+        list.path("result").path("tools").forEach(tool -> names.add(tool.path("name").asText()));
+        assertEquals(Set.of("x_a", "y_a"), names);
+        assertEquals("y:a", call.path("result").path("content").path(0).path("text").asText());
+    }
+
+    private List<JsonNode> runWithSmallBuffer(McpStdioServer.Framing framing, String input) throws Exception {
+        System.setProperty("STDIO_BUFFER_BYTES", "1024");
+        try {
+            return run(framing, input);
+        } finally {
+            System.clearProperty("STDIO_BUFFER_BYTES");
+        }
+    }
+
+    private List<JsonNode> run(McpStdioServer.Framing framing, String input) throws Exception {
+        return run(new StubService("stdio")
+                .tool("echo")
+                .tool("wait", (exchange, request) -> {
+                    long ms = ((Number) request.arguments().get("ms")).longValue();
+                    return CompletableFuture.supplyAsync(
+                            () -> McpSchema.CallToolResult.builder().addTextContent("waited " + ms).build(),
+                            CompletableFuture.delayedExecutor(ms, TimeUnit.MILLISECONDS));
+                }), framing, input);
+    }
+
+    private List<JsonNode> run(McpService service, McpStdioServer.Framing framing, String input) throws Exception {
+        McpStdioServer server = new McpStdioServer(framing);
+        server.initialize(service);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        server.start(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        return parse(framing, output.toString(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> parse(McpStdioServer.Framing framing, String output) throws Exception {
+        List<JsonNode> messages = new ArrayList<>();
+        if (framing == McpStdioServer.Framing.LINE) {
+            for (String line : output.split("\n")) {
+                if (!line.isBlank()) {
+                    messages.add(objectMapper.readTree(line));
+                }
+            }
+            return messages;
+        }
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        int at = 0;
+        while (at < bytes.length) {
+            int headerEnd = output.indexOf("\r\n\r\n", at);
+            String header = output.substring(at, headerEnd);
+            assertTrue(header.startsWith("Content-Length: "), header);
+            int length = Integer.parseInt(header.substring("Content-Length: ".length()).trim());
+            int body = headerEnd + 4;
+            messages.add(objectMapper.readTree(new String(bytes, body, length, StandardCharsets.UTF_8)));
+            at = body + length;
+        }
+        return messages;
+    }
+
+    private static List<Integer> ids(List<JsonNode> output) {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode message : output) {
+            assertTrue(message.has("result"), message.toString());
+            ids.add(message.path("id").asInt());
+        }
+        // Responses are written as calls complete, not in request order
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static String framed(String message) {
+        return "Content-Length: " + message.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + message;
+    }
+
+    private static String callRequest(int id, String tool, String arguments) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\"" + tool
+                + "\",\"arguments\":" + arguments + "}}";
+    }
+
+    /**
+     * A ping whose params pad it to at least the given size.
+     */
+    private static String padded(int id, int size) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"ping\",\"params\":{\"pad\":\"" + "x".repeat(size) + "\"}}";
+    }
+
+    private static String ping(int id) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"ping\"}";
+    }
+}
@@ -0,0 +1,110 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseCompressorTest {
+
+    @Test
+    void testNegotiate() {
+        assertEquals("gzip", ResponseCompressor.negotiate("gzip, deflate"));
+        assertEquals("deflate", ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("gzip", ResponseCompressor.negotiate("*"));
+        assertEquals("deflate", ResponseCompressor.negotiate("gzip;q=0, *;q=0.3"));
+        assertNull(ResponseCompressor.negotiate("gzip;q=0"));
+        assertNull(ResponseCompressor.negotiate("identity"));
+        assertNull(ResponseCompressor.negotiate(null));
+    }
+
+    @Test
+    void testWholeBodyRoundTrip() throws Exception {
+        ResponseCompressor compressor = createCompressor();
+        byte[] body = json(5000);
+
+        assertArrayEquals(body, gunzip(compressor.compress(body, "gzip")));
+        assertArrayEquals(body, inflate(compressor.compress(body, "deflate")));
+    }
+
+    @Test
+    void testCachedTailIsSplicedAfterThePrefix() throws Exception {
+        ResponseCompressor compressor = createCompressor();
+        byte[] tail = ("\"result\":{\"tools\":[" + "{\"name\":\"tool\"},".repeat(300) + "{}]}}").getBytes(StandardCharsets.UTF_8);
+        compressor.cacheTail(tail);
+
+        // An empty prefix, a short envelope and one larger than the deflate buffer
+        for (String prefix : new String[] {"", "{\"jsonrpc\":\"2.0\",\"id\":7,", "{\"id\":\"" + "p".repeat(20000) + "\","}) {
+            byte[] body = concat(prefix.getBytes(StandardCharsets.UTF_8), tail);
+            assertArrayEquals(body, gunzip(compressor.compress(body, "gzip")), "gzip, prefix of " + prefix.length());
+            assertArrayEquals(body, inflate(compressor.compress(body, "deflate")), "deflate, prefix of " + prefix.length());
+        }
+    }
+
+    @Test
+    void testWrappedStreamEmitsEachFlush() throws Exception {
+        for (String encoding : new String[] {"gzip", "deflate"}) {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            OutputStream os = ResponseCompressor.wrap(sink, encoding);
+            os.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+            os.flush();
+
+            // Decodable before the stream is finished
+            byte[] partial = sink.toByteArray();
+            Inflater inflater = "gzip".equals(encoding) ? new Inflater(true) : new Inflater();
+            int header = "gzip".equals(encoding) ? 10 : 0;
+            inflater.setInput(partial, header, partial.length - header);
+            byte[] out = new byte[256];
+            int n = inflater.inflate(out);
+            inflater.end();
+            assertEquals("data: first\n\n", new String(out, 0, n, StandardCharsets.UTF_8), encoding);
+            os.close();
+        }
+    }
+
+    private static ResponseCompressor createCompressor() {
+        System.setProperty("HTTP_COMPRESS_MIN_BYTES", "0");
+        try {
+            return new ResponseCompressor();
+        } finally {
+            System.clearProperty("HTTP_COMPRESS_MIN_BYTES");
+        }
+    }
+
+    private static byte[] json(int entries) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < entries; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"n\":").append(i).append('}');
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static byte[] gunzip(byte[] data) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws Exception {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpHandler;
+
+class RouteTableTest {
+
+    @Test
+    void testSegmentsMatchWhole() {
+        RouteTable routes = new RouteTable();
+        HttpHandler random = handler();
+        routes.add("/mcp/random", random);
+
+        assertSame(random, routes.match("/mcp/random"));
+        assertSame(random, routes.match("/mcp/random/"));
+        assertNull(routes.match("/mcp/randomx"), "A longer segment is a different module");
+        assertNull(routes.match("/mcp/rand"));
+        assertNull(routes.match("/mcp"));
+    }
+
+    @Test
+    void testDeepestRouteWins() {
+        RouteTable routes = new RouteTable();
+        HttpHandler prefix = handler();
+        HttpHandler random = handler();
+        HttpHandler sse = handler();
+        routes.add("/mcp", prefix);
+        routes.add("/mcp/random", random);
+        routes.add("/mcp/random/sse", sse);
+
+        assertSame(random, routes.match("/mcp/random/mcp"));
+        assertSame(sse, routes.match("/mcp/random/sse"));
+        assertSame(sse, routes.match("//mcp//random/sse/"));
+        // Below the prefix, an unknown module falls back to the prefix route
+        assertSame(prefix, routes.match("/mcp/randomx"));
+        assertNull(routes.match("/other"));
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        RouteTable routes = new RouteTable();
+        HttpHandler first = handler();
+        HttpHandler second = handler();
+        HttpHandler messages = handler();
+        routes.add("/a", first);
+        routes.add("/a/messages", messages);
+        routes.add("/a", second);
+        assertSame(second, routes.match("/a/mcp"));
+
+        // Routes below a removed one stay
+        routes.remove("/a");
+        assertNull(routes.match("/a"));
+        assertSame(messages, routes.match("/a/messages"));
+
+        routes.remove("/a/messages");
+        assertNull(routes.match("/a/messages"));
+    }
+
+    @Test
+    void testManyModules() {
+        RouteTable routes = new RouteTable();
+        HttpHandler[] handlers = new HttpHandler[200];
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = handler();
+            routes.add("/mcp/module" + i, handlers[i]);
+        }
+        for (int i = 0; i < handlers.length; i++) {
+            assertSame(handlers[i], routes.match("/mcp/module" + i + "/mcp"));
+        }
+        assertNull(routes.match("/mcp/module200"));
+    }
+
+    @Test
+    void testQueryParam() {
+        assertEquals("abc", RouteTable.queryParam("sessionId=abc", "sessionId"));
+        assertEquals("abc", RouteTable.queryParam("x=1&sessionId=abc&y=2", "sessionId"));
+        assertEquals("", RouteTable.queryParam("sessionId=", "sessionId"));
+        assertNull(RouteTable.queryParam("xsessionId=abc", "sessionId"));
+        assertNull(RouteTable.queryParam("sessionIdx=abc", "sessionId"));
+        assertNull(RouteTable.queryParam("sessionId", "sessionId"));
+        assertNull(RouteTable.queryParam(null, "sessionId"));
+    }
+
+    private static HttpHandler handler() {
+        return exchange -> { };
+    }
+}
@@ -0,0 +1,111 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mcp.core.StubService;
+import io.modelcontextprotocol.spec.McpSchema;
+import reactor.core.publisher.Mono;
+
+class StreamableServerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testClientCancelGetsNoResponse() throws Exception {
+        StreamableServer server = createServer();
+        try {
+            String sessionId = server.openSession(null);
+            CompletableFuture<byte[]> call = send(server, sessionId, callRequest(1));
+            send(server, sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":1}}");
+
+            assertNull(call.get(5, TimeUnit.SECONDS), "A request the client cancelled should get no response");
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void testSessionCloseAnswersWithError() throws Exception {
+        StreamableServer server = createServer();
+        try {
+            String sessionId = server.openSession(null);
+            CompletableFuture<byte[]> call = send(server, sessionId, callRequest(2));
+            assertTrue(server.closeSession(sessionId));
+
+            JsonNode response = objectMapper.readTree(call.get(5, TimeUnit.SECONDS));
+            assertEquals(2, response.path("id").asInt());
+            assertEquals(-32603, response.path("error").path("code").asInt());
+            assertTrue(response.path("error").path("message").asText().contains("session closed"), response.toString());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void testShutdownAnswersWithError() throws Exception {
+        StreamableServer server = createServer();
+        String sessionId = server.openSession(null);
+        CompletableFuture<byte[]> call = send(server, sessionId, callRequest(3));
+        server.shutdown();
+
+        JsonNode response = objectMapper.readTree(call.get(5, TimeUnit.SECONDS));
+        assertEquals(3, response.path("id").asInt());
+        assertTrue(response.path("error").path("message").asText().contains("shutting down"), response.toString());
+    }
+
+    @Test
+    void testExchangeDeclaresNoClientRequests() throws Exception {
+        StreamableServer server = createServer();
+        try {
+            String sessionId = server.openSession(null);
+            String request = "{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/call\",\"params\":{\"name\":\"ask\",\"arguments\":{}}}";
+
+            JsonNode response = objectMapper.readTree(send(server, sessionId, request).get(5, TimeUnit.SECONDS));
+            String text = response.path("result").path("content").path(0).path("text").asText();
+            assertEquals("capabilities: none; ping: Server-to-client request ping is not supported by this transport", text,
+                    response.toString());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private StreamableServer createServer() {
+        StreamableServer server = new StreamableServer();
+        server.initialize(new StubService("hanging")
+                // Never completes on its own
+                .tool("hang", (exchange, request) -> new CompletableFuture<>())
+                // Reports what the exchange allows it to ask of the client
+                .tool("ask", (exchange, request) -> {
+                    McpSchema.ClientCapabilities capabilities = exchange.getClientCapabilities();
+                    boolean none = capabilities.sampling() == null && capabilities.elicitation() == null
+                            && capabilities.roots() == null;
+                    return exchange.ping()
+                            .map(ignored -> "answered")
+                            .onErrorResume(e -> Mono.just(e.getMessage()))
+                            .map(ping -> McpSchema.CallToolResult.builder()
+                                    .addTextContent("capabilities: " + (none ? "none" : capabilities) + "; ping: " + ping)
+                                    .build())
+                            .toFuture();
+                }));
+        return server;
+    }
+
+    private static CompletableFuture<byte[]> send(StreamableServer server, String sessionId, String request) {
+        return server.handleRequestBytes(request.getBytes(StandardCharsets.UTF_8), sessionId);
+    }
+
+    private static String callRequest(int id) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\",\"params\":{\"name\":\"hang\",\"arguments\":{}}}";
+    }
+}
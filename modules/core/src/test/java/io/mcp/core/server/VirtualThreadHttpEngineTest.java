@@ -0,0 +1,244 @@
+package io.mcp.core.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadHttpEngineTest {
+
+    private static final int PORT = 18190;
+
+    private VirtualThreadHttpEngine engine;
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeEach
+    void startEngine() throws Exception {
+        System.setProperty("HTTP_MAX_BODY_BYTES", "1024");
+        try {
+            engine = new VirtualThreadHttpEngine(new InetSocketAddress(PORT), 16);
+        } finally {
+            System.clearProperty("HTTP_MAX_BODY_BYTES");
+        }
+        // Echo "METHOD path body"
+        engine.createContext("/", exchange -> {
+            handled.incrementAndGet();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            byte[] reply = (exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                    + new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, reply.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(reply);
+            }
+        });
+        // Streams its response with chunked framing
+        engine.createContext("/stream", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                for (int i = 0; i < 3; i++) {
+                    os.write(("part" + i + ";").getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                }
+            }
+        });
+        engine.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        engine.start();
+    }
+
+    @AfterEach
+    void stopEngine() {
+        engine.stop(0);
+    }
+
+    @Test
+    void testContentLengthBody() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello");
+            Response response = Response.read(socket.getInputStream());
+            assertEquals(200, response.status);
+            assertEquals("POST /echo hello", response.body);
+        }
+    }
+
+    @Test
+    void testChunkedRequestBody() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + "5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+            assertEquals(200, response.status);
+            assertEquals("POST /echo hello world", response.body);
+        }
+    }
+
+    @Test
+    void testChunkedResponseBody() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/stream")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("part0;part1;part2;", response.body());
+    }
+
+    @Test
+    void testPipelinedKeepAliveRequests() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            // Both requests in one write; answered in order on the same connection
+            send(socket, "POST /first HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\none"
+                    + "GET /second HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Response first = Response.read(in);
+            Response second = Response.read(in);
+            assertEquals("POST /first one", first.body);
+            assertEquals("GET /second ", second.body);
+
+            send(socket, "GET /third HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+            Response third = Response.read(in);
+            assertEquals("GET /third ", third.body);
+            assertEquals("close", third.header("connection"));
+            assertEquals(-1, in.read(), "Connection should be closed after Connection: close");
+        }
+    }
+
+    @Test
+    void testMalformedRequests() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nNoColonHere\r\n\r\n");
+            assertEquals(400, Response.read(socket.getInputStream()).status);
+        }
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "NONSENSE\r\n\r\n");
+            assertEquals(400, Response.read(socket.getInputStream()).status);
+        }
+        assertEquals(0, handled.get(), "Malformed requests should not reach the handler");
+    }
+
+    @Test
+    void testPayloadTooLarge() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 2048\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+            assertEquals(413, response.status);
+            assertEquals(-1, socket.getInputStream().read(), "Connection should be closed after 413");
+        }
+        assertEquals(0, handled.get(), "An oversized request should not reach the handler");
+    }
+
+    @Test
+    void testAmbiguousContentLengthIsRejected() throws Exception {
+        // Each would let a body be read as the next pipelined request
+        String smuggled = "GET /smuggled HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        String[] heads = {
+            "Content-Length: -5\r\n",
+            "Content-Length: 5x\r\n",
+            "Content-Length: +5\r\n",
+            "Transfer-Encoding: chunked\r\nContent-Length: 5\r\n",
+            "Content-Length: 5\r\nContent-Length: 6\r\n",
+            "Content-Length: 5, 6\r\n",
+        };
+        for (String head : heads) {
+            try (Socket socket = new Socket("localhost", PORT)) {
+                send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\n" + head + "\r\n" + smuggled);
+                Response response = Response.read(socket.getInputStream());
+                assertEquals(400, response.status, head);
+                assertEquals("close", response.header("connection"), head);
+                assertEquals(-1, socket.getInputStream().read(), "Connection should be closed after " + head);
+            }
+        }
+        assertEquals(0, handled.get(), "Ambiguous requests should not reach the handler");
+    }
+
+    @Test
+    void testRepeatedEqualContentLengthIsAccepted() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\nContent-Length: 5\r\n\r\nhello");
+            Response response = Response.read(socket.getInputStream());
+            assertEquals(200, response.status);
+            assertEquals("POST /echo hello", response.body);
+        }
+    }
+
+    @Test
+    void testInvalidChunkSizeIsRejected() throws Exception {
+        for (String size : new String[] {"-5", "+5", "zz", ""}) {
+            try (Socket socket = new Socket("localhost", PORT)) {
+                send(socket, "POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + size + "\r\nhello\r\n0\r\n\r\n");
+                Response response = Response.read(socket.getInputStream());
+                assertEquals(400, response.status, "Chunk size " + size);
+                assertEquals(-1, socket.getInputStream().read(), "Connection should be closed after chunk size " + size);
+            }
+        }
+    }
+
+    @Test
+    void testOversizedHeadGets431() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            send(socket, "GET /echo HTTP/1.1\r\nHost: localhost\r\nX-Padding: "
+                    + "x".repeat(VirtualThreadHttpEngine.MAX_HEADER_BYTES) + "\r\n\r\n");
+            Response response = Response.read(socket.getInputStream());
+            assertEquals(431, response.status);
+            assertEquals("close", response.header("connection"));
+        }
+        assertEquals(0, handled.get(), "An oversized head should not reach the handler");
+    }
+
+    private static void send(Socket socket, String request) throws IOException {
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+        socket.getOutputStream().flush();
+    }
+
+    /**
+     * A Content-Length framed response read off a raw socket.
+     */
+    private record Response(int status, Map<String, String> headers, String body) {
+
+        String header(String name) {
+            return headers.get(name);
+        }
+
+        static Response read(InputStream in) throws IOException {
+            String statusLine = line(in);
+            assertTrue(statusLine.startsWith("HTTP/1.1 "), "Unexpected status line: " + statusLine);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while (!(line = line(in)).isEmpty()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+            int length = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+            return new Response(status, headers, new String(in.readNBytes(length), StandardCharsets.UTF_8));
+        }
+
+        private static String line(InputStream in) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (b != '\r') {
+                    bytes.write(b);
+                }
+            }
+            return bytes.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
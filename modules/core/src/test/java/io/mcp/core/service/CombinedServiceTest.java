@@ -0,0 +1,79 @@
+package io.mcp.core.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.mcp.core.StubService;
+import io.mcp.core.protocol.McpTool;
+import io.modelcontextprotocol.spec.McpSchema;
+
+class CombinedServiceTest {
+
+    @Test
+    void testUniqueNamesAreKept() {
+        CombinedService combined = new CombinedService(List.of(
+                new StubService("x").tool("a"),
+                new StubService("y").tool("b")));
+
+        assertEquals(Set.of("a", "b"), toolNames(combined));
+    }
+
+    @Test
+    void testSharedNamesAreQualified() throws Exception {
+        CombinedService combined = new CombinedService(List.of(
+                new StubService("x").tool("a"),
+                new StubService("y").tool("a")));
+
+        assertEquals(Set.of("x_a", "y_a"), toolNames(combined));
+        McpTool tool = combined.getTool("y_a");
+        assertNotNull(tool);
+        McpSchema.CallToolResult result = tool.call(null, new McpSchema.CallToolRequest("y_a", Map.of())).get();
+        assertEquals("y:a", ((McpSchema.TextContent) result.content().get(0)).text());
+    }
+
+    @Test
+    void testQualifiedNameDoesNotReplaceUniqueName() {
+        // x_a is module z's own tool, so module x's a must be combined under another name
+        CombinedService combined = new CombinedService(List.of(
+                new StubService("x").tool("a"),
+                new StubService("y").tool("a"),
+                new StubService("z").tool("x_a")));
+
+        assertEquals(Set.of("x_a", "x_a_2", "y_a"), toolNames(combined));
+        assertEquals("z", combined.getTool("x_a").getModule());
+        assertEquals(3, combined.getTools().size());
+    }
+
+    @Test
+    void testPromptsAndTemplatesAreQualified() {
+        CombinedService combined = new CombinedService(List.of(
+                new StubService("x").prompt("p").template("t"),
+                new StubService("y").prompt("p").template("t").prompt("x_p")));
+
+        assertEquals(Set.of("x_p", "x_p_2", "y_p"), combined.getPromptSpecifications().stream()
+                .map(spec -> spec.prompt().name()).collect(Collectors.toSet()));
+        assertEquals(Set.of("x_t", "y_t"), combined.getResourceTemplateSpecifications().stream()
+                .map(spec -> spec.resourceTemplate().name()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testFirstModuleServesSharedResource() {
+        CombinedService combined = new CombinedService(List.of(
+                new StubService("x").resource("stub://shared"),
+                new StubService("y").resource("stub://shared").resource("stub://own")));
+
+        assertEquals(2, combined.getResourceSpecifications().size());
+        assertEquals("x resource", combined.getResourceSpecifications().get(0).resource().name());
+    }
+
+    private static Set<String> toolNames(CombinedService combined) {
+        return combined.getTools().stream().map(tool -> tool.getTool().name()).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,33 @@
+package io.mcp.testmodule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import io.mcp.core.StubService;
+import io.modelcontextprotocol.spec.McpSchema;
+
+/**
+ * Module packaged into jars by the ModuleManager tests. It lives outside
+ * io.mcp.core so a module class loader loads it from the jar; its "version"
+ * tool answers with the reloadable.version resource of that jar.
+ */
+public class ReloadableService extends StubService {
+
+    public ReloadableService() {
+        super("reloadable");
+        String version = readVersion();
+        tool("version", (exchange, request) -> CompletableFuture.completedFuture(
+                McpSchema.CallToolResult.builder().addTextContent(version).build()));
+    }
+
+    private String readVersion() {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("reloadable.version")) {
+            return in != null ? new String(in.readAllBytes(), StandardCharsets.UTF_8) : "none";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
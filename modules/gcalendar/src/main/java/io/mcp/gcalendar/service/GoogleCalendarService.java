@@ -6,6 +6,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +18,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.mcp.core.base.BaseMcpService;
 import io.mcp.core.manager.AuthManager;
+import io.mcp.core.protocol.McpModule;
 import io.mcp.core.protocol.McpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.core.utility.Utility;
 import io.mcp.gcalendar.tool.CreateEvent;
 import io.mcp.gcalendar.tool.DeleteEvent;
@@ -28,9 +31,12 @@ import io.mcp.gcalendar.tool.ListEvents;
 import io.mcp.gcalendar.tool.UpdateEvent;
 import io.modelcontextprotocol.spec.McpSchema.Implementation;
 
+@McpModule("gcalendar")
 public class GoogleCalendarService extends BaseMcpService {
 
     private static final String BASE_URL = "https://www.googleapis.com/calendar/v3";
+    private static final Duration MIN_REQUEST_TIMEOUT = Duration.ofMillis(1);
+    private static final Duration WARMUP_TIMEOUT = Duration.ofSeconds(10);
 
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
@@ -70,6 +76,21 @@ public class GoogleCalendarService extends BaseMcpService {
         return "gcalendar";
     }
 
+    /**
+     * Open a connection to the Calendar API, so the first tool call does not
+     * pay for DNS and the TLS handshake. The (unauthorized) response is discarded;
+     * the connection stays in the client's pool.
+     */
+    @Override
+    public CompletableFuture<Void> warmup() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/users/me/calendarList"))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .timeout(WARMUP_TIMEOUT)
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenAccept(response -> Utility.debug("Calendar API connection warmed up, status:", response.statusCode()));
+    }
+
 
 
     private URI buildUri(String path, Map<String, String> queryParams) {
@@ -92,17 +113,28 @@ public class GoogleCalendarService extends BaseMcpService {
         return URI.create(sb.toString());
     }
 
-    private HttpRequest.Builder requestBuilder(String token, URI uri) {
-        return HttpRequest.newBuilder(uri)
+    private HttpRequest.Builder requestBuilder(ToolCallContext context, String token, URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
             .header("Authorization", "Bearer " + token)
             .header("Accept", "application/json");
+
+        // Bound the outbound call by what is left of the tool call's deadline
+        Duration remaining = context.getRemaining();
+        if (remaining != null) {
+            builder.timeout(remaining.isZero() ? MIN_REQUEST_TIMEOUT : remaining);
+        }
+        return builder;
     }
 
-    private CompletableFuture<JsonNode> send(HttpRequest request) {
-        return send(request, null, null);
+    private CompletableFuture<JsonNode> send(ToolCallContext context, HttpRequest request) {
+        return send(context, request, null, null);
     }
 
-    private CompletableFuture<JsonNode> send(HttpRequest request, String method, String requestBody) {
+    /**
+     * Send a request on behalf of a tool call. The exchange is tracked by the
+     * call context so cancelling the call aborts it.
+     */
+    private CompletableFuture<JsonNode> send(ToolCallContext context, HttpRequest request, String method, String requestBody) {
         // Log request details
         Utility.debug("HTTP Request - URL: " + request.uri() +
                      ", Method: " + (method != null ? method : "UNKNOWN"));
@@ -110,7 +142,7 @@ public class GoogleCalendarService extends BaseMcpService {
             Utility.debug("HTTP Request Body: " + requestBody);
         }
 
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        return context.track(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
             .thenApply(response -> {
                 String body = response.body();
                 int status = response.statusCode();
@@ -134,7 +166,7 @@ public class GoogleCalendarService extends BaseMcpService {
             });
     }
 
-    public CompletableFuture<JsonNode> listCalendars(String token, Integer maxResults, String pageToken) {
+    public CompletableFuture<JsonNode> listCalendars(ToolCallContext context, String token, Integer maxResults, String pageToken) {
 
         Utility.debug("listCalendars", token, maxResults, pageToken);
 
@@ -146,17 +178,18 @@ public class GoogleCalendarService extends BaseMcpService {
             query.put("pageToken", pageToken);
         }
         URI uri = buildUri("/users/me/calendarList", query);
-        HttpRequest request = requestBuilder(token, uri).GET().build();
-        return send(request, "GET", null);
+        HttpRequest request = requestBuilder(context, token, uri).GET().build();
+        return send(context, request, "GET", null);
     }
 
-    public CompletableFuture<JsonNode> getCalendar(String token, String calendarId) {
+    public CompletableFuture<JsonNode> getCalendar(ToolCallContext context, String token, String calendarId) {
         URI uri = buildUri("/calendars/" + encodeSegment(calendarId), Map.of());
-        HttpRequest request = requestBuilder(token, uri).GET().build();
-        return send(request, "GET", null);
+        HttpRequest request = requestBuilder(context, token, uri).GET().build();
+        return send(context, request, "GET", null);
     }
 
     public CompletableFuture<JsonNode> listEvents(
+        ToolCallContext context,
         String token,
         String calendarId,
         String timeMin,
@@ -190,17 +223,18 @@ public class GoogleCalendarService extends BaseMcpService {
             query.put("q", queryText);
         }
         URI uri = buildUri("/calendars/" + encodeSegment(calendarId) + "/events", query);
-        HttpRequest request = requestBuilder(token, uri).GET().build();
-        return send(request, "GET", null);
+        HttpRequest request = requestBuilder(context, token, uri).GET().build();
+        return send(context, request, "GET", null);
     }
 
-    public CompletableFuture<JsonNode> getEvent(String token, String calendarId, String eventId) {
+    public CompletableFuture<JsonNode> getEvent(ToolCallContext context, String token, String calendarId, String eventId) {
         URI uri = buildUri("/calendars/" + encodeSegment(calendarId) + "/events/" + encodeSegment(eventId), Map.of());
-        HttpRequest request = requestBuilder(token, uri).GET().build();
-        return send(request, "GET", null);
+        HttpRequest request = requestBuilder(context, token, uri).GET().build();
+        return send(context, request, "GET", null);
     }
 
     public CompletableFuture<JsonNode> createEvent(
+        ToolCallContext context,
         String token,
         String calendarId,
         String summary,
@@ -230,14 +264,15 @@ public class GoogleCalendarService extends BaseMcpService {
             endNode.put("timeZone", timeZone);
         }
         String payloadStr = payload.toString();
-        HttpRequest request = requestBuilder(token, uri)
+        HttpRequest request = requestBuilder(context, token, uri)
             .header("Content-Type", "application/json")
             .POST(HttpRequest.BodyPublishers.ofString(payloadStr))
             .build();
-        return send(request, "POST", payloadStr);
+        return send(context, request, "POST", payloadStr);
     }
 
     public CompletableFuture<JsonNode> updateEvent(
+        ToolCallContext context,
         String token,
         String calendarId,
         String eventId,
@@ -274,17 +309,17 @@ public class GoogleCalendarService extends BaseMcpService {
             }
         }
         String payloadStr = payload.toString();
-        HttpRequest request = requestBuilder(token, uri)
+        HttpRequest request = requestBuilder(context, token, uri)
             .header("Content-Type", "application/json")
             .method("PATCH", HttpRequest.BodyPublishers.ofString(payloadStr))
             .build();
-        return send(request, "PATCH", payloadStr);
+        return send(context, request, "PATCH", payloadStr);
     }
 
-    public CompletableFuture<JsonNode> deleteEvent(String token, String calendarId, String eventId) {
+    public CompletableFuture<JsonNode> deleteEvent(ToolCallContext context, String token, String calendarId, String eventId) {
         URI uri = buildUri("/calendars/" + encodeSegment(calendarId) + "/events/" + encodeSegment(eventId), Map.of());
-        HttpRequest request = requestBuilder(token, uri).DELETE().build();
-        return send(request, "DELETE", null);
+        HttpRequest request = requestBuilder(context, token, uri).DELETE().build();
+        return send(context, request, "DELETE", null);
     }
 
     /*
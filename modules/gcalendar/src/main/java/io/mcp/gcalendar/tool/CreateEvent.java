@@ -6,6 +6,7 @@ import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -42,8 +43,9 @@ public class CreateEvent extends BaseMcpTool {
             String location = optional(args, "location");
             String timeZone = optional(args, "timeZone");
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.createEvent(token, calendarId, summary, description, location, startTime, endTime, timeZone))
+                .thenCompose(token -> service.createEvent(context, token, calendarId, summary, description, location, startTime, endTime, timeZone))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
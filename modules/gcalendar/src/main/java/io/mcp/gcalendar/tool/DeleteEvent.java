@@ -6,6 +6,7 @@ import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -37,8 +38,9 @@ public class DeleteEvent extends BaseMcpTool {
             String calendarId = require(args, "calendarId");
             String eventId = require(args, "eventId");
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.deleteEvent(token, calendarId, eventId))
+                .thenCompose(token -> service.deleteEvent(context, token, calendarId, eventId))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
@@ -6,6 +6,7 @@ import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -36,8 +37,9 @@ public class GetCalendar extends BaseMcpTool {
             Map<String, Object> args = request.arguments();
             String calendarId = parseRequiredString(args, "calendarId");
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.getCalendar(token, calendarId))
+                .thenCompose(token -> service.getCalendar(context, token, calendarId))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
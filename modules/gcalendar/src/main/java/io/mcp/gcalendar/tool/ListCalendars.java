@@ -6,6 +6,7 @@ import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.core.utility.Utility;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
@@ -40,8 +41,9 @@ public class ListCalendars extends BaseMcpTool {
             Integer maxResults = parseInteger(args, "maxResults");
             String pageToken = parseString(args, "pageToken");
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.listCalendars(token, maxResults, pageToken))
+                .thenCompose(token -> service.listCalendars(context, token, maxResults, pageToken))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
@@ -4,8 +4,12 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -14,6 +18,8 @@ import io.modelcontextprotocol.spec.McpSchema.CallToolResult;
 
 public class ListEvents extends BaseMcpTool {
 
+    private static final int MAX_PAGES = 20;
+
     private final GoogleCalendarService service;
 
     public ListEvents(GoogleCalendarService service) {
@@ -42,9 +48,13 @@ public class ListEvents extends BaseMcpTool {
             Boolean singleEvents = parseBoolean(args, "singleEvents");
             String orderBy = parseString(args, "orderBy");
             String query = parseString(args, "query");
+            Integer maxPagesArg = parseInteger(args, "maxPages");
+            int maxPages = maxPagesArg != null ? Math.max(1, Math.min(MAX_PAGES, maxPagesArg)) : 1;
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
+            PageQuery pageQuery = new PageQuery(context, calendarId, timeMin, timeMax, maxResults, singleEvents, orderBy, query, maxPages);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.listEvents(token, calendarId, timeMin, timeMax, maxResults, pageToken, singleEvents, orderBy, query))
+                .thenCompose(token -> fetchPages(exchange, request, pageQuery, token, pageToken, 1, JsonNodeFactory.instance.arrayNode(), 0))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
@@ -52,6 +62,55 @@ public class ListEvents extends BaseMcpTool {
         }
     }
 
+    private record PageQuery(
+        ToolCallContext context,
+        String calendarId,
+        String timeMin,
+        String timeMax,
+        Integer maxResults,
+        Boolean singleEvents,
+        String orderBy,
+        String query,
+        int maxPages
+    ) {
+    }
+
+    /**
+     * Fetch one page and follow nextPageToken until maxPages. Every page but
+     * the last is streamed to the client as it arrives; the result is the last
+     * page with the items that could not be streamed, and streamedItems
+     * counting those that were.
+     */
+    private CompletableFuture<JsonNode> fetchPages(McpAsyncServerExchange exchange, CallToolRequest request, PageQuery q,
+            String token, String pageToken, int page, ArrayNode items, int streamed) {
+        return service.listEvents(q.context(), token, q.calendarId(), q.timeMin(), q.timeMax(), q.maxResults(), pageToken, q.singleEvents(), q.orderBy(), q.query())
+            .thenCompose(node -> {
+                JsonNode pageItems = node.path("items");
+                String nextPageToken = node.path("nextPageToken").asText(null);
+                if (nextPageToken != null && page < q.maxPages()) {
+                    int count = streamed;
+                    if (reportPartialContent(exchange, request, page, (double) q.maxPages(), pageItems.toString())) {
+                        count += pageItems.size();
+                    } else if (pageItems.isArray()) {
+                        items.addAll((ArrayNode) pageItems);
+                    }
+                    return fetchPages(exchange, request, q, token, nextPageToken, page + 1, items, count);
+                }
+                if (page == 1 || !(node instanceof ObjectNode)) {
+                    return CompletableFuture.completedFuture(node);
+                }
+                if (pageItems.isArray()) {
+                    items.addAll((ArrayNode) pageItems);
+                }
+                ObjectNode merged = ((ObjectNode) node).deepCopy();
+                merged.set("items", items);
+                if (streamed > 0) {
+                    merged.put("streamedItems", streamed);
+                }
+                return CompletableFuture.completedFuture(merged);
+            });
+    }
+
     private String parseRequiredString(Map<String, Object> args, String key) {
         if (args == null || !args.containsKey(key)) {
             throw new IllegalArgumentException(key + " is required");
@@ -6,6 +6,7 @@ import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.mcp.core.base.BaseMcpTool;
+import io.mcp.core.protocol.ToolCallContext;
 import io.mcp.gcalendar.service.GoogleCalendarService;
 import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -46,8 +47,9 @@ public class UpdateEvent extends BaseMcpTool {
                 throw new IllegalArgumentException("At least one field to update must be provided");
             }
             String sessionId = exchange.sessionId();
+            ToolCallContext context = ToolCallContext.from(exchange);
             return service.fetchAuthToken(sessionId)
-                .thenCompose(token -> service.updateEvent(token, calendarId, eventId, summary, description, location, startTime, endTime, timeZone))
+                .thenCompose(token -> service.updateEvent(context, token, calendarId, eventId, summary, description, location, startTime, endTime, timeZone))
                 .thenApply(this::success)
                 .exceptionally(this::failure);
         } catch (Exception e) {
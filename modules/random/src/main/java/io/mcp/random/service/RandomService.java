@@ -3,11 +3,13 @@ package io.mcp.random.service;
 import java.util.List;
 
 import io.mcp.core.base.BaseMcpService;
+import io.mcp.core.protocol.McpModule;
 import io.mcp.core.protocol.McpTool;
 import io.mcp.core.utility.Utility;
 import io.mcp.random.tool.GenerateRandom;
 import io.modelcontextprotocol.spec.McpSchema.Implementation;
 
+@McpModule("random")
 public class RandomService extends BaseMcpService{
 
 
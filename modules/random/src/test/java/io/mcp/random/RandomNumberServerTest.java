@@ -516,6 +516,81 @@ class RandomNumberServerTest {
         server.shutdown();
     }
 
+    /**
+     * Verify tools/call is decoded when params arrive before method, and that
+     * non-object bodies are rejected as invalid requests.
+     */
+    @Test
+    void testStreamableToolsCallWithParamsBeforeMethod() throws Exception {
+        StreamableServer server = createInitializedServer();
+
+        String callToolRequest = """
+            {
+                "params": {
+                    "arguments": {
+                        "bound": 10
+                    },
+                    "name": "generateRandom"
+                },
+                "id": 7,
+                "jsonrpc": "2.0",
+                "method": "tools/call"
+            }
+            """;
+
+        String toolResponse = server.handleRequestSync(callToolRequest, null);
+        validateJsonRpcResponse(toolResponse, 7);
+        int randomNumber = Integer.parseInt(objectMapper.readTree(toolResponse)
+                .path("result").path("content").get(0).path("text").asText());
+        assertTrue(randomNumber >= 0 && randomNumber < 10, "Random number should be between 0 and 9");
+
+        JsonNode invalidJson = objectMapper.readTree(server.handleRequestSync("\"tools/list\"", null));
+        assertEquals(-32600, invalidJson.path("error").path("code").asInt(), "Non-object body should be an invalid request");
+
+        JsonNode parseErrorJson = objectMapper.readTree(server.handleRequestSync("{\"jsonrpc\":", null));
+        assertEquals(-32700, parseErrorJson.path("error").path("code").asInt(), "Truncated body should be a parse error");
+
+        server.shutdown();
+    }
+
+    /**
+     * Verify JSON-RPC batches: responses come back in request order, notifications
+     * are dropped, and a batch of only notifications gets no response.
+     */
+    @Test
+    void testStreamableBatchRequest() throws Exception {
+        StreamableServer server = createInitializedServer();
+
+        String batchRequest = "["
+                + createCallToolRequest(1, "generateRandom", Map.of("bound", 10)) + ","
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},"
+                + createListToolsRequest(2) + ","
+                + createCallToolRequest(3, "generateRandom", Map.of("bound", 20)) + ","
+                + "42"
+                + "]";
+
+        String batchResponse = new String(server.handleRequestBytes(batchRequest.getBytes(), null).join());
+        JsonNode batchJson = objectMapper.readTree(batchResponse);
+        assertTrue(batchJson.isArray(), "Batch response should be an array: " + batchResponse);
+        assertEquals(4, batchJson.size(), "Notification should be dropped from the batch response");
+
+        validateJsonRpcResponse(batchJson.get(0).toString(), 1);
+        validateJsonRpcResponse(batchJson.get(1).toString(), 2);
+        validateJsonRpcResponse(batchJson.get(2).toString(), 3);
+        assertTrue(batchJson.get(1).path("result").path("tools").isArray(), "tools/list result should be in place");
+        int randomNumber = Integer.parseInt(batchJson.get(2).path("result").path("content").get(0).path("text").asText());
+        assertTrue(randomNumber >= 0 && randomNumber < 20, "Random number should be between 0 and 19");
+        assertEquals(-32600, batchJson.get(3).path("error").path("code").asInt(), "Non-object element should be an invalid request");
+
+        String notificationsOnly = "[{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}]";
+        assertEquals(null, server.handleRequestSync(notificationsOnly, null), "Notification-only batch should get no response");
+
+        JsonNode emptyBatchJson = objectMapper.readTree(server.handleRequestSync("[]", null));
+        assertEquals(-32600, emptyBatchJson.path("error").path("code").asInt(), "Empty batch should be an invalid request");
+
+        server.shutdown();
+    }
+
 
     /**
      * Test using the official MCP SDK's McpSyncClient with Streamable HTTP transport.